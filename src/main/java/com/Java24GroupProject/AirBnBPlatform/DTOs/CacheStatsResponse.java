@@ -0,0 +1,50 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for returning cache statistics (see ListingResponseCache)
+public class CacheStatsResponse {
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long evictionCount;
+    private long evictionSizeBytes;
+    private long entries;
+    private long sizeBytes;
+
+    public CacheStatsResponse(long hitCount, long missCount, double hitRatio, long evictionCount, long evictionSizeBytes, long entries, long sizeBytes) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRatio = hitRatio;
+        this.evictionCount = evictionCount;
+        this.evictionSizeBytes = evictionSizeBytes;
+        this.entries = entries;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionSizeBytes() {
+        return evictionSizeBytes;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for returning one listing of a host in HostResponse, with the ratings of the listing
+public class HostListingResponse {
+    private String id;
+    private String name;
+    private int reviewCount;
+    private double averageRating;
+
+    public HostListingResponse(String id, String name, int reviewCount, double averageRating) {
+        this.id = id;
+        this.name = name;
+        this.reviewCount = reviewCount;
+        this.averageRating = averageRating;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+}
@@ -1,21 +1,24 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
-import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
-
 import java.util.List;
 
+//The DTO for returning a host profile, reviewCount and averageRating are for the reviews on all listings of the host
 public class HostResponse {
         private String id;
         private String username;
         private String profilePictureURL;
         private String description;
-        private List<IdAndName> listings;
+        private int reviewCount;
+        private double averageRating;
+        private List<HostListingResponse> listings;
 
-    public HostResponse(String id, String username, String profilePictureURL, String description, List<IdAndName> listings) {
+    public HostResponse(String id, String username, String profilePictureURL, String description, int reviewCount, double averageRating, List<HostListingResponse> listings) {
         this.id = id;
         this.username = username;
         this.profilePictureURL = profilePictureURL;
         this.description = description;
+        this.reviewCount = reviewCount;
+        this.averageRating = averageRating;
         this.listings = listings;
     }
 
@@ -35,7 +38,15 @@ public class HostResponse {
         return description;
     }
 
-    public List<IdAndName> getListings() {
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public List<HostListingResponse> getListings() {
         return listings;
     }
 }
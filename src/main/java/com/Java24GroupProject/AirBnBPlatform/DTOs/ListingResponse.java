@@ -3,6 +3,7 @@ package com.Java24GroupProject.AirBnBPlatform.DTOs;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingHistogram;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,10 +23,13 @@ public class ListingResponse {
     private String location;
     private List<String> imageUrls;
     private double averageRating;
+    private int ratingCount;
+    private RatingHistogram ratingHistogram;
+    private double bayesianRating;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    public ListingResponse(String id, String title, String hostId, String hostName, String description, BigDecimal pricePerNight, Integer capacity, Set<ListingUtilities> utilities, List<DateRange> availableDates, String location, List<String> imageUrls, double averageRating, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    public ListingResponse(String id, String title, String hostId, String hostName, String description, BigDecimal pricePerNight, Integer capacity, Set<ListingUtilities> utilities, List<DateRange> availableDates, String location, List<String> imageUrls, double averageRating, int ratingCount, RatingHistogram ratingHistogram, double bayesianRating, LocalDateTime createdAt, LocalDateTime updatedAt) {
         this.id = id;
         this.title = title;
         this.host = new IdAndName(hostId, hostName);
@@ -37,6 +41,9 @@ public class ListingResponse {
         this.location = location;
         this.imageUrls = imageUrls;
         this.averageRating = averageRating;
+        this.ratingCount = ratingCount;
+        this.ratingHistogram = ratingHistogram;
+        this.bayesianRating = bayesianRating;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
@@ -85,6 +92,18 @@ public class ListingResponse {
         return averageRating;
     }
 
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public RatingHistogram getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public double getBayesianRating() {
+        return bayesianRating;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
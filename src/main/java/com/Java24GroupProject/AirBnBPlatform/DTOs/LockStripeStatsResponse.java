@@ -0,0 +1,38 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for returning listing lock statistics (see ListingLockManager)
+public class LockStripeStatsResponse {
+    private int stripe;
+    private long acquisitions;
+    private long totalWaitMs;
+    private long maxWaitMs;
+    private int waiting;
+
+    public LockStripeStatsResponse(int stripe, long acquisitions, long totalWaitMs, long maxWaitMs, int waiting) {
+        this.stripe = stripe;
+        this.acquisitions = acquisitions;
+        this.totalWaitMs = totalWaitMs;
+        this.maxWaitMs = maxWaitMs;
+        this.waiting = waiting;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public long getTotalWaitMs() {
+        return totalWaitMs;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+}
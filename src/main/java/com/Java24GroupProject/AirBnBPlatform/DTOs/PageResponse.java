@@ -0,0 +1,42 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import java.util.List;
+
+//The DTO for returning one page of a list endpoint (see Pagination)
+//nextCursor is the id to send as "after" to get the next page with keyset pagination, null if there is no next page
+//or if the page is not sorted on id
+public class PageResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public PageResponse(List<T> content, int page, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
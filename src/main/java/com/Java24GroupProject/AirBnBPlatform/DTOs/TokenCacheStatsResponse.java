@@ -0,0 +1,38 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for returning verified jwt token cache statistics (see VerifiedTokenCache)
+public class TokenCacheStatsResponse {
+    private boolean enabled;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long entries;
+
+    public TokenCacheStatsResponse(boolean enabled, long hitCount, long missCount, double hitRatio, long entries) {
+        this.enabled = enabled;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRatio = hitRatio;
+        this.entries = entries;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+}
@@ -14,9 +14,7 @@ public class UserRequest {
     @Indexed(unique = true)
     private String username;
 
-    @NotNull(message = "password is a required field")
-    @NotEmpty(message = "password is a required field")
-    @NotBlank(message = "password is a required field")
+    //required when registering, optional when updating a user (no password = keep the current password)
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()\\-_=+{};:,<.>]).{8,}$",
             message = "password must be minimum 8 characters and must contain must contain: 1 uppercase letter, 1 lowercase letter, 1 number and 1 special character")
 
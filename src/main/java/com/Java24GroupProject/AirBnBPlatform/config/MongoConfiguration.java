@@ -0,0 +1,80 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import org.bson.Document;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+//This class configures how objects are mapped to and from MongoDB documents
+@Configuration
+public class MongoConfiguration {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new LocalDateWritingConverter(),
+                new LocalDateReadingConverter(),
+                new DateRangeWritingConverter(),
+                new DateRangeReadingConverter()));
+    }
+
+    /*LocalDate is stored as midnight UTC, so stored dates do not depend on the time zone of the server (the Spring Data default
+    uses the server time zone). Used for LocalDate fields, LocalDate query values (e.g. the availability search) and DateRange.
+    Dates written by earlier versions are midnight in the server time zone, they are rewritten to midnight UTC at startup
+    (see ReferenceMigrationRunner) and until then read as the nearest UTC midnight so they still give the same date
+    (for time zones less than 12 hours from UTC)*/
+    static Date toDate(LocalDate localDate) {
+        return Date.from(localDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    static LocalDate toLocalDate(Date date) {
+        return LocalDate.ofInstant(date.toInstant().plus(Duration.ofHours(12)), ZoneOffset.UTC);
+    }
+
+    @WritingConverter
+    static class LocalDateWritingConverter implements Converter<LocalDate, Date> {
+        @Override
+        public Date convert(LocalDate localDate) {
+            return toDate(localDate);
+        }
+    }
+
+    @ReadingConverter
+    static class LocalDateReadingConverter implements Converter<Date, LocalDate> {
+        @Override
+        public LocalDate convert(Date date) {
+            return toLocalDate(date);
+        }
+    }
+
+    //DateRange holds its dates as epoch days, but is stored as {startDate, endDate} dates (same format as LocalDate fields),
+    //so existing documents and date queries on availableDates/bookingDates keep working
+    @WritingConverter
+    static class DateRangeWritingConverter implements Converter<DateRange, Document> {
+        @Override
+        public Document convert(DateRange dateRange) {
+            Document document = new Document();
+            document.put("startDate", toDate(dateRange.getStartDate()));
+            document.put("endDate", toDate(dateRange.getEndDate()));
+            return document;
+        }
+    }
+
+    @ReadingConverter
+    static class DateRangeReadingConverter implements Converter<Document, DateRange> {
+        @Override
+        public DateRange convert(Document document) {
+            return new DateRange(toLocalDate(document.getDate("startDate")), toLocalDate(document.getDate("endDate")));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//creates the indexes declared on the model classes (@CompoundIndex, @Indexed) at startup, if they do not exist already
+//(Spring Boot does not create them by itself, as spring.data.mongodb.auto-index-creation is off by default)
+@Component
+public class MongoIndexInitializer {
+    //model classes whose indexes are created
+    private static final List<Class<?>> INDEXED_CLASSES = List.of(Listing.class, Review.class, Booking.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> indexedClass : INDEXED_CLASSES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(indexedClass);
+            indexResolver.resolveIndexFor(indexedClass).forEach(indexOperations::ensureIndex);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*migrates documents saved by earlier versions, each migration runs once at startup, before the indexes are created
+(see MongoIndexInitializer), and is recorded in the migrations collection so it is not run again:
+- converts documents saved when listings, bookings, reviews and favorites were stored as @DBRef references to the id fields
+used now (e.g. listing: DBRef -> listingId: ObjectId)
+- rewrites dates stored as midnight in the server time zone to midnight UTC (see MongoConfiguration.toDate), so the
+compare-and-set on availableDates (ListingRepositoryCustomImpl.updateAvailableDatesIfUnchanged) and date queries match them
+- drops indexes that are no longer declared on the model classes (MongoIndexInitializer only creates indexes)
+Documents are read from a database cursor and updated in batches, so memory use does not depend on the number of documents.*/
+@Component
+public class ReferenceMigrationRunner implements ApplicationRunner {
+    private static final String REFERENCES_MIGRATION_ID = "dbref-to-id-fields";
+    private static final String UTC_DATES_MIGRATION_ID = "dates-to-utc-midnight";
+    private static final String UNUSED_INDEXES_MIGRATION_ID = "drop-unused-indexes";
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final int BATCH_SIZE = 500;
+    //per collection: old reference field -> new id field
+    private static final Map<String, Map<String, String>> RENAMED_FIELDS = Map.of(
+            "listings", Map.of("host", "hostId"),
+            "bookings", Map.of("listing", "listingId", "user", "userId"),
+            "reviews", Map.of("listing", "listingId", "user", "userId"),
+            "users", Map.of("favorites", "favoriteListingIds"));
+    //per collection: indexes on the old reference fields
+    private static final Map<String, List<String>> REFERENCE_INDEXES = Map.of(
+            "listings", List.of("host"),
+            "reviews", List.of("listing_createdAt"));
+    //per collection: indexes replaced by (field, _id) sort indexes, indexes on often changed fields (updatedAt, availableDates
+    //without location) and the review feed index that is now shared with the createdAt pages
+    private static final Map<String, List<String>> UNUSED_INDEXES = Map.of(
+            "listings", List.of("capacity", "averageRating", "bayesianRating", "updatedAt_id", "pricePerNight_capacity", "availableDates"),
+            "reviews", List.of("listingId_createdAt", "listingId_createdAt_id"));
+    //per collection: fields holding LocalDate or DateRange values (a date, a {startDate, endDate} document or a list of them)
+    private static final Map<String, List<String>> DATE_FIELDS = Map.of(
+            "listings", List.of("availableDates"),
+            "bookings", List.of("bookingDates"),
+            "reviews", List.of("endDate"));
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReferenceMigrationRunner(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        runOnce(REFERENCES_MIGRATION_ID, () -> {
+            RENAMED_FIELDS.forEach(this::migrateReferences);
+            REFERENCE_INDEXES.forEach(this::dropIndexes);
+        });
+        runOnce(UTC_DATES_MIGRATION_ID, () -> DATE_FIELDS.forEach(this::migrateDates));
+        runOnce(UNUSED_INDEXES_MIGRATION_ID, () -> UNUSED_INDEXES.forEach(this::dropIndexes));
+    }
+
+    private void runOnce(String migrationId, Runnable migration) {
+        if (mongoTemplate.exists(new Query(Criteria.where("_id").is(migrationId)), MIGRATIONS_COLLECTION)) {
+            return;
+        }
+        migration.run();
+        mongoTemplate.insert(new Document("_id", migrationId).append("appliedAt", LocalDateTime.now()), MIGRATIONS_COLLECTION);
+    }
+
+    //replace the old reference fields of all documents in collection that still have them
+    private void migrateReferences(String collection, Map<String, String> renamedFields) {
+        Query query = new Query(new Criteria().orOperator(renamedFields.keySet().stream()
+                .map(oldField -> Criteria.where(oldField).exists(true))
+                .toList()));
+        renamedFields.keySet().forEach(oldField -> query.fields().include(oldField));
+
+        updateInBatches(collection, query, document -> {
+            Update update = new Update();
+            renamedFields.forEach((oldField, newField) -> {
+                if (document.containsKey(oldField)) {
+                    update.set(newField, toId(document.get(oldField))).unset(oldField);
+                }
+            });
+            return new DocumentUpdate(new Query(Criteria.where("_id").is(document.get("_id"))), update);
+        });
+    }
+
+    //rewrite the dates of dateFields that are not midnight UTC, the old value is part of the filter so a change made by
+    //the application in the meantime is not overwritten
+    private void migrateDates(String collection, List<String> dateFields) {
+        Query query = new Query(new Criteria().orOperator(dateFields.stream()
+                .map(field -> Criteria.where(field).exists(true))
+                .toList()));
+        dateFields.forEach(field -> query.fields().include(field));
+
+        updateInBatches(collection, query, document -> {
+            Criteria filter = Criteria.where("_id").is(document.get("_id"));
+            Update update = new Update();
+            for (String field : dateFields) {
+                Object value = document.get(field);
+                Object utcValue = toUtcMidnight(value);
+                if (value != null && !value.equals(utcValue)) {
+                    filter.and(field).is(value);
+                    update.set(field, utcValue);
+                }
+            }
+            return update.getUpdateObject().isEmpty() ? null : new DocumentUpdate(new Query(filter), update);
+        });
+    }
+
+    //drop the indexes of collection that exist
+    private void dropIndexes(String collection, List<String> indexNames) {
+        List<IndexInfo> indexes = mongoTemplate.indexOps(collection).getIndexInfo();
+        for (String indexName : indexNames) {
+            if (indexes.stream().anyMatch(index -> index.getName().equals(indexName))) {
+                mongoTemplate.indexOps(collection).dropIndex(indexName);
+            }
+        }
+    }
+
+    //stream the documents of query and apply the update returned for each of them (null: no update) in bulk batches
+    private void updateInBatches(String collection, Query query, Function<Document, DocumentUpdate> updateFunction) {
+        query.cursorBatchSize(BATCH_SIZE);
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int updatesInBatch = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                DocumentUpdate documentUpdate = updateFunction.apply(document);
+                if (documentUpdate == null) {
+                    continue;
+                }
+                updates.updateOne(documentUpdate.query(), documentUpdate.update());
+                if (++updatesInBatch == BATCH_SIZE) {
+                    updates.execute();
+                    updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    updatesInBatch = 0;
+                }
+            }
+        }
+        if (updatesInBatch > 0) {
+            updates.execute();
+        }
+    }
+
+    private record DocumentUpdate(Query query, Update update) {
+    }
+
+    //the same value with every date moved to midnight UTC of the date it is read as (see MongoConfiguration.toLocalDate)
+    private static Object toUtcMidnight(Object value) {
+        if (value instanceof Date date) {
+            return MongoConfiguration.toDate(MongoConfiguration.toLocalDate(date));
+        }
+        if (value instanceof Document document) {
+            Document utcDocument = new Document();
+            document.forEach((key, fieldValue) -> utcDocument.put(key, toUtcMidnight(fieldValue)));
+            return utcDocument;
+        }
+        if (value instanceof List<?> values) {
+            return values.stream()
+                    .map(ReferenceMigrationRunner::toUtcMidnight)
+                    .toList();
+        }
+        return value;
+    }
+
+    //the id of a reference, or the ids of a list of references (null stays null)
+    private static Object toId(Object reference) {
+        if (reference instanceof DBRef dbRef) {
+            return dbRef.getId();
+        }
+        if (reference instanceof List<?> references) {
+            return references.stream()
+                    .map(ReferenceMigrationRunner::toId)
+                    .toList();
+        }
+        return reference;
+    }
+}
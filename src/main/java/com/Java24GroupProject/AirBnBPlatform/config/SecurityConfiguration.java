@@ -1,6 +1,8 @@
 package com.Java24GroupProject.AirBnBPlatform.config;
 
 import com.Java24GroupProject.AirBnBPlatform.filters.JwtAuthenticationFilter;
+import com.Java24GroupProject.AirBnBPlatform.util.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,8 +11,11 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -18,6 +23,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 //This class is a part of the site security, configures method and endpoint access based on roles among other things
 @Configuration
@@ -89,9 +97,54 @@ public class SecurityConfiguration {
         return source;
     }
 
-    //hash and salt algo (common strength is 10-12)
+    /*hash and salt algo, new passwords are hashed with security.password-encoding.id (bcrypt, argon2 or pbkdf2), bcrypt with
+    cost security.password-encoding.bcrypt-strength (common strength is 10-12, each step doubles the time per hash).
+    Hashes are stored with the algo as prefix, e.g. {bcrypt}$2a$12$..., hashes without prefix (stored before the prefix was
+    used) are bcrypt. When a user logs in with a hash made with another algo or another bcrypt cost, the password is hashed again
+    with the current settings (see CustomUserDetailsService.updatePassword), so the settings can be changed without invalidating
+    existing passwords.
+    Hashing is run on its own bounded thread pool (see BoundedPasswordEncoder), by default one thread per CPU core*/
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.password-encoding.id:bcrypt}") String encodingId,
+            @Value("${security.password-encoding.bcrypt-strength:12}") int bcryptStrength,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:50}") int queueCapacity) {
+        BCryptPasswordEncoder bcrypt = new ExactStrengthBCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8(),
+                "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalStateException("security.password-encoding.id must be one of " + encoders.keySet());
+        }
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(encodingId, encoders);
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return new BoundedPasswordEncoder(delegatingPasswordEncoder, threads, queueCapacity);
+    }
+
+    //BCryptPasswordEncoder only asks for a new hash if the cost of the stored hash is lower than strength, this one also if it is
+    //higher, so lowering the strength also lowers the cost of future logins
+    static class ExactStrengthBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+        private final int strength;
+
+        ExactStrengthBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+            return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+        }
     }
 }
@@ -0,0 +1,34 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*Settings used when requests are run on virtual threads (spring.threads.virtual.enabled=true, Java 21), then Spring Boot
+runs every Tomcat request on its own virtual thread instead of a pool of 200 platform threads.
+With platform threads the thread pool limits how many requests can use MongoDB at the same time, with virtual threads
+there is no such limit, so the MongoDB connection pool is made larger and requests only wait a short time for a connection
+(instead of piling up when the database is overloaded).*/
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer virtualThreadConnectionPool(
+            @Value("${mongodb.pool.max-size:500}") int maxSize,
+            @Value("${mongodb.pool.min-size:20}") int minSize,
+            @Value("${mongodb.pool.max-connecting:10}") int maxConnecting,
+            @Value("${mongodb.pool.max-wait-time:PT2S}") Duration maxWaitTime) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxConnecting(maxConnecting)
+                .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,72 @@
+package com.Java24GroupProject.AirBnBPlatform.controllers;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.CacheStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.LockStripeStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.TokenCacheStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.services.ReviewService;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingLockManager;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingSearchIndex;
+import com.Java24GroupProject.AirBnBPlatform.util.VerifiedTokenCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//ADMIN-only endpoints for monitoring and maintaining the application
+@RestController
+@RequestMapping("/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+    private final ListingLockManager listingLockManager;
+    private final ListingSearchIndex listingSearchIndex;
+    private final ListingResponseCache listingResponseCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReviewService reviewService;
+
+    public AdminController(ListingLockManager listingLockManager, ListingSearchIndex listingSearchIndex, ListingResponseCache listingResponseCache, VerifiedTokenCache verifiedTokenCache, ReviewService reviewService) {
+        this.listingLockManager = listingLockManager;
+        this.listingSearchIndex = listingSearchIndex;
+        this.listingResponseCache = listingResponseCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.reviewService = reviewService;
+    }
+
+    //wait time and queue length for the listing locks used by booking changes
+    @GetMapping("/metrics/listing-locks")
+    public ResponseEntity<List<LockStripeStatsResponse>> getListingLockStats() {
+        return new ResponseEntity<>(listingLockManager.getStripeStats(), HttpStatus.OK);
+    }
+
+    //hit ratio, evictions and size of the cache used by GET /listings/{id}
+    @GetMapping("/metrics/listing-cache")
+    public ResponseEntity<CacheStatsResponse> getListingCacheStats() {
+        return new ResponseEntity<>(listingResponseCache.getStats(), HttpStatus.OK);
+    }
+
+    //hits and misses of the verified jwt token cache (enabled is false if the cache is turned off)
+    @GetMapping("/metrics/token-cache")
+    public ResponseEntity<TokenCacheStatsResponse> getTokenCacheStats() {
+        return new ResponseEntity<>(verifiedTokenCache.getStats(), HttpStatus.OK);
+    }
+
+    //rebuild the in-memory listing search index from the database (picks up listing changes made by other app instances)
+    @PostMapping("/maintenance/listing-search-index/rebuild")
+    public ResponseEntity<String> rebuildListingSearchIndex() {
+        listingSearchIndex.rebuild();
+        return new ResponseEntity<>("listing search index rebuilt, " + listingSearchIndex.size() + " listings indexed", HttpStatus.OK);
+    }
+
+    //recompute the ratings of all listings from their reviews, and of all hosts from their listings (for data created before
+    //ratings were stored, or to repair them)
+    @PostMapping("/maintenance/listing-ratings/recompute")
+    public ResponseEntity<String> recomputeListingRatings() {
+        int listingCount = reviewService.recomputeListingRatings();
+        return new ResponseEntity<>("listing ratings recomputed, " + listingCount + " listings updated", HttpStatus.OK);
+    }
+}
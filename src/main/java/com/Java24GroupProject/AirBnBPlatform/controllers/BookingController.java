@@ -2,22 +2,29 @@ package com.Java24GroupProject.AirBnBPlatform.controllers;
 
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.services.BookingService;
+import com.Java24GroupProject.AirBnBPlatform.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -35,15 +42,15 @@ public class BookingController {
 
     //get all bookings for a listing
     @GetMapping("/listing/{listingId}")
-    public ResponseEntity<List<BookingResponse>> getBookingsByListingId(@PathVariable String listingId) {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsByListingId(listingId);
+    public ResponseEntity<PageResponse<BookingResponse>> getBookingsByListingId(@PathVariable String listingId, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<BookingResponse> bookingResponses = bookingService.getBookingsByListingId(listingId, pageable, after);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
     //get all bookings for current user
     @GetMapping("/user")
-    public ResponseEntity<List<BookingResponse>> getBookingsCurrentUser() {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsCurrentUser();
+    public ResponseEntity<PageResponse<BookingResponse>> getBookingsCurrentUser(Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<BookingResponse> bookingResponses = bookingService.getBookingsCurrentUser(pageable, after);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
@@ -75,16 +82,25 @@ public class BookingController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<BookingResponse>> getAllBookings() {
-        List<BookingResponse> bookingResponses = bookingService.getAllBookings();
+    public ResponseEntity<PageResponse<BookingResponse>> getAllBookings(Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<BookingResponse> bookingResponses = bookingService.getAllBookings(pageable, after);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
+    //export all bookings as newline delimited JSON, written to the response while they are read from the database
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void exportBookings(HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter ndjsonWriter = new NdjsonWriter(objectMapper, response.getOutputStream());
+        bookingService.exportBookings(ndjsonWriter::write);
+    }
+
     //get all user bookings by userid
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<BookingResponse>> getBookingsByUserId(@PathVariable String userId) {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsByUserId(userId);
+    public ResponseEntity<PageResponse<BookingResponse>> getBookingsByUserId(@PathVariable String userId, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<BookingResponse> bookingResponses = bookingService.getBookingsByUserId(userId, pageable, after);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 }
\ No newline at end of file
@@ -3,70 +3,108 @@ package com.Java24GroupProject.AirBnBPlatform.controllers;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.HostResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.services.ListingService;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/listings")
 public class ListingController {
     private final ListingService listingService;
+    private final ObjectMapper objectMapper;
     
-    public ListingController(ListingService listingService) {
+    public ListingController(ListingService listingService, ObjectMapper objectMapper) {
         this.listingService = listingService;
+        this.objectMapper = objectMapper;
     }
 
     //GET-endpoints for listing search, accessible w/o logging in -------------------------------------------
 
     @GetMapping()
-    public ResponseEntity<List<ListingResponse>> getAllListings() {
-        List<ListingResponse> listings = listingService.getAllListings();
+    public ResponseEntity<PageResponse<ListingResponse>> getAllListings(Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getAllListings(pageable, after);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
     // search for listing by id
-    @GetMapping("/{id}")
-    public ResponseEntity<ListingResponse> getListingById(@PathVariable String id) {
-        ListingResponse listingResponse = listingService.getListingById(id);
-        return new ResponseEntity<>(listingResponse, HttpStatus.OK);
+    //the listing is returned as already serialized JSON from the listing cache, with an ETag
+    //Spring answers with 304 Not Modified (and no body) if the If-None-Match header of the request matches the ETag
+    //no-cache lets clients store the listing, but they have to check with the ETag that it is still current before using it
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getListingById(@PathVariable String id) {
+        ListingResponseCache.CachedListing listing = listingService.getListingById(id);
+        return ResponseEntity.ok()
+                .eTag(listing.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(listing.json());
     }
 
     // search for listing between price range
     @GetMapping("/price")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByPrice(@RequestParam double minPrice, @RequestParam double maxPrice) {
-        List<ListingResponse> listings = listingService.getListingByPriceRange(minPrice, maxPrice);
+    public ResponseEntity<PageResponse<ListingResponse>> getAllListingsByPrice(@RequestParam double minPrice, @RequestParam double maxPrice, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getListingByPriceRange(minPrice, maxPrice, pageable, after);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
     //search for listing via location (city)
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByLocation(@PathVariable String location) {
-        List<ListingResponse> listings = listingService.getListingByLocation(location);
+    public ResponseEntity<PageResponse<ListingResponse>> getAllListingsByLocation(@PathVariable String location, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getListingByLocation(location, pageable, after);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
     // search for listing between capacity size
     @GetMapping("/capacity")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByCapacity(@RequestParam double minCapacity, @RequestParam double maxCapacity) {
-        List<ListingResponse> listing = listingService.getListingByCapacity(minCapacity, maxCapacity);
+    public ResponseEntity<PageResponse<ListingResponse>> getAllListingsByCapacity(@RequestParam double minCapacity, @RequestParam double maxCapacity, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listing = listingService.getListingByCapacity(minCapacity, maxCapacity, pageable, after);
         return new ResponseEntity<>(listing, HttpStatus.OK);
     }
     
-    // search for listing with matching utilities
+    // search for listing with matching utilities, e.g. /utilities/WIFI,POOL?match=any (default is listings with all utilities)
     @GetMapping("/utilities/{utilities}")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByUtilities(@PathVariable String utilities) {
-        List<ListingResponse> listings = listingService.getListingByUtilities(utilities);
+    public ResponseEntity<PageResponse<ListingResponse>> getAllListingsByUtilities(@PathVariable String utilities, @RequestParam(defaultValue = "all") String match, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getListingByUtilities(utilities, match, pageable, after);
+        return new ResponseEntity<>(listings, HttpStatus.OK);
+    }
+
+    // search for listings available for a period, e.g. /available?startDate=2026-12-20&endDate=2026-12-27&location=Stockholm&guests=2
+    @GetMapping("/available")
+    public ResponseEntity<PageResponse<ListingResponse>> getAvailableListings(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                                              @RequestParam(required = false) String location,
+                                                                              @RequestParam(required = false) Integer guests,
+                                                                              Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getAvailableListings(startDate, endDate, location, guests, pageable, after);
+        return new ResponseEntity<>(listings, HttpStatus.OK);
+    }
+
+    // search for listings on any combination of filters, e.g. /search?location=Stockholm&minCapacity=4&utilities=WIFI,POOL
+    // &startDate=2025-06-01&endDate=2025-06-07
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<ListingResponse>> searchListings(ListingSearchRequest searchRequest, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.searchListings(searchRequest, pageable, after);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
 
     @GetMapping("/host/{hostId}")
-    public ResponseEntity<List<ListingResponse>> getListingsByHostId(@PathVariable String hostId) {
-        List<ListingResponse> listings = listingService.getListingsByHostId(hostId);
+    public ResponseEntity<PageResponse<ListingResponse>> getListingsByHostId(@PathVariable String hostId, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listings = listingService.getListingsByHostId(hostId, pageable, after);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
 
@@ -79,8 +117,8 @@ public class ListingController {
 
     @GetMapping("/user")
     @PreAuthorize("hasAnyRole('HOST', 'ADMIN')")
-    public ResponseEntity<List<ListingResponse>> getListingsCurrentUser() {
-        List<ListingResponse> listingResponses = listingService.getListingsCurrentUser();
+    public ResponseEntity<PageResponse<ListingResponse>> getListingsCurrentUser(Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ListingResponse> listingResponses = listingService.getListingsCurrentUser(pageable, after);
         return new ResponseEntity<>(listingResponses, HttpStatus.OK);
     }
 
@@ -103,4 +141,15 @@ public class ListingController {
         listingService.deleteListing(id);
         return ResponseEntity.noContent().build();
     }
+
+    //ADMIN-specific endpoints ----------------------------------------------------------------------------
+
+    //export all listings as newline delimited JSON, written to the response while they are read from the database
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportListings(HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter ndjsonWriter = new NdjsonWriter(objectMapper, response.getOutputStream());
+        listingService.exportListings(ndjsonWriter::write);
+    }
 }
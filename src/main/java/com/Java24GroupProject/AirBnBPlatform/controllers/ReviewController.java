@@ -1,15 +1,16 @@
 package com.Java24GroupProject.AirBnBPlatform.controllers;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
 import com.Java24GroupProject.AirBnBPlatform.services.ReviewService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/reviews")
@@ -22,8 +23,19 @@ public class ReviewController {
 
     // Get all reviews for a specific listing
     @GetMapping("/listing/{listingId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByListingId(@PathVariable String listingId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByListing(listingId);
+    public ResponseEntity<PageResponse<ReviewResponse>> getReviewsByListingId(@PathVariable String listingId, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ReviewResponse> reviewResponses = reviewService.getReviewsByListing(listingId, pageable, after);
+        return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
+    }
+
+    // Get reviews for a listing newest first, e.g. /reviews/listing/{listingId}/feed?size=20&minRating=4, next page with
+    // cursor=<nextCursor of previous page>
+    @GetMapping("/listing/{listingId}/feed")
+    public ResponseEntity<PageResponse<ReviewResponse>> getReviewFeedByListingId(@PathVariable String listingId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(defaultValue = "20") int size,
+                                                                               @RequestParam(required = false) Double minRating) {
+        PageResponse<ReviewResponse> reviewResponses = reviewService.getReviewFeedByListing(listingId, cursor, size, minRating);
         return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
     }
 
@@ -38,8 +50,8 @@ public class ReviewController {
     // Get all reviews for current user
     @PreAuthorize("hasAnyRole('ADMIN','HOST','USER')")
     @GetMapping("/user")
-    public ResponseEntity<List<ReviewResponse>> getReviewsCurrentUser() {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsCurrentUser();
+    public ResponseEntity<PageResponse<ReviewResponse>> getReviewsCurrentUser(Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ReviewResponse> reviewResponses = reviewService.getReviewsCurrentUser(pageable, after);
         return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
     }
 
@@ -54,23 +66,8 @@ public class ReviewController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByUserId(@PathVariable String userId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByUserId(userId);
+    public ResponseEntity<PageResponse<ReviewResponse>> getReviewsByUserId(@PathVariable String userId, Pageable pageable, @RequestParam(required = false) String after) {
+        PageResponse<ReviewResponse> reviewResponses = reviewService.getReviewsByUserId(userId, pageable, after);
         return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
     }
-
-
-    // Get for avg rating and reviews based on host
-    /* @GetMapping("/host/{hostId}/avgrating")
-    public ResponseEntity<Double> getAverageRatingForHost(@PathVariable String hostId) {
-        double averageRating = reviewService.getAverageRatingForHost(hostId);
-        return new ResponseEntity<>(averageRating, HttpStatus.OK);
-    }
-    @GetMapping("/host/{hostId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByHost(@PathVariable String hostId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByHost(hostId);
-        return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
-    }*/
-
-
 }
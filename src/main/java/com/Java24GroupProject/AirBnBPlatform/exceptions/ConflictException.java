@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.Java24GroupProject.AirBnBPlatform.exceptions;
 
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -49,11 +50,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
     }
 
-    @ExceptionHandler(NameAlreadyBoundException.class)
+    @ExceptionHandler({NameAlreadyBoundException.class, ConflictException.class})
     public ResponseEntity<String> conflictExceptionHandler(Exception ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    //e.g. too many logins at the same time, the client can retry after a second
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<String> serviceUnavailableExceptionHandler(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
     //error handling for @RequestBody failing @Valid check
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> validationExceptionHandler(MethodArgumentNotValidException ex) {
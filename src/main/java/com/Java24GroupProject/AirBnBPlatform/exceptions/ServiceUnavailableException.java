@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
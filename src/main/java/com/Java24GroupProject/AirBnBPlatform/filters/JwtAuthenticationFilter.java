@@ -2,6 +2,7 @@ package com.Java24GroupProject.AirBnBPlatform.filters;
 
 import com.Java24GroupProject.AirBnBPlatform.services.CustomUserDetailsService;
 import com.Java24GroupProject.AirBnBPlatform.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -62,14 +63,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         //if jwt has been found, try to authenticate user
         if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                //extract username from token
-                String username = jwtUtil.extractUsername(jwt);
+                //verify token and extract its contents (only done once per request)
+                Claims claims = jwtUtil.extractAllClaims(jwt);
+                String username = claims.getSubject();
+                if (username == null) {
+                    throw new JwtException("JWT has no subject");
+                }
 
-                //get user details from db
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                //get user details (from cache or db)
+                UserDetails userDetails = userDetailsService.loadAuthenticatedUser(username);
 
                 //validate token and create authentication (if token is valid)
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (jwtUtil.validateToken(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
                     //add request details for extra security
@@ -7,26 +7,39 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+//indexes for the bookings of a listing and of a user (created at startup by MongoIndexInitializer)
 @Document(collection = "bookings")
+@CompoundIndexes({
+        @CompoundIndex(name = "listingId", def = "{'listingId': 1}"),
+        @CompoundIndex(name = "userId", def = "{'userId': 1}"),
+        //sorted pages of all bookings (see Pagination.toPageRequest, id is always the last sort key)
+        @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': 1}"),
+        @CompoundIndex(name = "updatedAt_id", def = "{'updatedAt': -1, '_id': 1}"),
+        @CompoundIndex(name = "bookingStatus_id", def = "{'bookingStatus': 1, '_id': 1}")
+})
 public class Booking {
     @Id
     private String id;
 
-    @DBRef
+    //ids of the listing and the user (stored as ObjectId), and the listing title so bookings can be shown without reading the listing
     @NotNull(message = "listing is required")
-    private Listing listing;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String listingId;
 
     private String listingTitle;
 
-    @DBRef
     @NotNull(message = "A user is required")
-    private User user;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String userId;
 
     @NotNull(message = "booking dates are required")
     private DateRange bookingDates;
@@ -60,12 +73,12 @@ public class Booking {
         this.id = id;
     }
 
-    public @NotNull(message = "A listing ID is required") Listing getListing() {
-        return listing;
+    public @NotNull(message = "A listing ID is required") String getListingId() {
+        return listingId;
     }
 
-    public void setListing(@NotNull(message = "A listing ID is required") Listing listing) {
-        this.listing = listing;
+    public void setListingId(@NotNull(message = "A listing ID is required") String listingId) {
+        this.listingId = listingId;
     }
 
     public String getListingTitle() {
@@ -76,12 +89,12 @@ public class Booking {
         this.listingTitle = listingTitle;
     }
 
-    public @NotNull(message = "A user is required") User getUser() {
-        return user;
+    public @NotNull(message = "A user is required") String getUserId() {
+        return userId;
     }
 
-    public void setUser(@NotNull(message = "A user is required") User user) {
-        this.user = user;
+    public void setUserId(@NotNull(message = "A user is required") String userId) {
+        this.userId = userId;
     }
 
 
@@ -0,0 +1,51 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+//ratings of all reviews on the listings of a host, id is the id of the host (user)
+//kept in its own collection (not in User) so saving a user cannot overwrite ratings added at the same time, and only changed
+//with atomic updates (see HostRatingRepositoryCustom)
+@Document(collection = "hostRatings")
+public class HostRating {
+    @Id
+    private String id;
+    private Double ratingSum;
+    private Integer reviewCount;
+    private Double averageRating;
+
+    public HostRating() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Double getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Double ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Integer reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+}
@@ -1,15 +1,19 @@
 package com.Java24GroupProject.AirBnBPlatform.models;
 
 
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.AvailableDateRanges;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingHistogram;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
@@ -20,7 +24,27 @@ import java.util.List;
 import java.util.Set;
 
 
+//indexes for the listing searches, equality filters (location, utilities) first and range filters after
+//(created at startup by MongoIndexInitializer)
 @Document(collection = "listings")
+@CompoundIndexes({
+        @CompoundIndex(name = "location_pricePerNight", def = "{'location': 1, 'pricePerNight': 1}"),
+        @CompoundIndex(name = "location_capacity", def = "{'location': 1, 'capacity': 1}"),
+        @CompoundIndex(name = "utilities_pricePerNight", def = "{'utilities': 1, 'pricePerNight': 1}"),
+        //listings of a host (host profiles, listings of a user)
+        @CompoundIndex(name = "hostId", def = "{'hostId': 1}"),
+        //sorted pages (see Pagination.toPageRequest, id is always the last sort key, ascending), one index per sortable field in
+        //the direction it is usually sorted in, pages sorted in the other direction are sorted in memory (updatedAt is not
+        //sortable, an index on it would be rewritten by every booking)
+        @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': 1}"),
+        @CompoundIndex(name = "pricePerNight_id", def = "{'pricePerNight': 1, '_id': 1}"),
+        @CompoundIndex(name = "capacity_id", def = "{'capacity': 1, '_id': 1}"),
+        @CompoundIndex(name = "averageRating_id", def = "{'averageRating': -1, '_id': 1}"),
+        @CompoundIndex(name = "bayesianRating_id", def = "{'bayesianRating': -1, '_id': 1}"),
+        //multikey index for availability searches ($elemMatch on availableDates), only with a location, as every booking rewrites
+        //the index entries of the listing
+        @CompoundIndex(name = "location_availableDates", def = "{'location': 1, 'availableDates.startDate': 1, 'availableDates.endDate': 1}")
+})
 public class Listing {
     @Id
     private String id;
@@ -43,9 +67,10 @@ public class Listing {
 
     private Set<ListingUtilities> utilities;
 
+    //id of the host (user), stored as ObjectId, and the username of the host (so listings can be shown without reading the host)
     @NotNull(message = "listing must have a host")
-    @DBRef
-    private User host;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String hostId;
     private String hostName;
 
     private List<String> imageUrls;
@@ -55,9 +80,20 @@ public class Listing {
     @NotBlank(message = "location is a required field")
     private String location;
 
+    //sorted, non-overlapping date ranges, this is the form stored in the database
     private List<DateRange> availableDates;
 
+    //sorted structure used for lookups and updates of available dates, built from availableDates when first needed
+    @Transient
+    private AvailableDateRanges availableDateRanges;
+
+    //sum, number and histogram of review ratings, only changed with atomic updates (see ListingRepositoryCustom.addRating),
+    //averageRating is ratingSum / ratingCount and bayesianRating is used to sort by quality (see RatingScore)
+    private Double ratingSum;
+    private Integer ratingCount;
+    private RatingHistogram ratingHistogram;
     private Double averageRating;
+    private Double bayesianRating;
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -115,12 +151,12 @@ public class Listing {
         this.utilities = utilities;
     }
 
-    public @NotNull(message = "listing must have a host") User getHost() {
-        return host;
+    public @NotNull(message = "listing must have a host") String getHostId() {
+        return hostId;
     }
 
-    public void setHost(@NotNull(message = "listing must have a host") User host) {
-        this.host = host;
+    public void setHostId(@NotNull(message = "listing must have a host") String hostId) {
+        this.hostId = hostId;
     }
 
     public String getHostName() {
@@ -152,7 +188,32 @@ public class Listing {
     }
 
     public void setAvailableDates(List<DateRange> availableDates) {
-        this.availableDates = availableDates;
+        this.availableDateRanges = new AvailableDateRanges(availableDates);
+        this.availableDates = availableDateRanges.toList();
+    }
+
+    public Double getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Double ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Integer getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public RatingHistogram getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(RatingHistogram ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
     }
 
     public Double getAverageRating() {
@@ -163,6 +224,14 @@ public class Listing {
         this.averageRating = averageRating;
     }
 
+    public Double getBayesianRating() {
+        return bayesianRating;
+    }
+
+    public void setBayesianRating(Double bayesianRating) {
+        this.bayesianRating = bayesianRating;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -179,44 +248,27 @@ public class Listing {
         this.updatedAt = updatedAt;
     }
 
+    //add dates to available dates, merging with adjacent date ranges
     public void addAvailableDateRange(DateRange dateRange) {
+        getAvailableDateRanges().add(dateRange);
+        availableDates = availableDateRanges.toList();
+    }
 
-        DateRange startsWhereNewDateRangeEnds = null;
-        DateRange endWhereNewDateRangeStarts = null;
-
-        for (DateRange availableDateRange : availableDates) {
-            //check if there is overlap with existing dates
-            if (dateRange.hasOverlapWithAnotherDateRange(availableDateRange)) {
-                throw new IllegalArgumentException("dates could not be added, as they overlap with existing available date ranges");
-
-                //if dates are identical to dates in list throw error
-            } else if (dateRange.isIdenticalToAnotherDateRange(availableDateRange)) {
-                throw new IllegalArgumentException("dates could not be added, already in available dates for listing");
-
-                //does dateRange start at the end of existing date range
-            } else if (dateRange.getStartDate().isEqual(availableDateRange.getEndDate())) {
-                endWhereNewDateRangeStarts = availableDateRange;
+    //remove dates from available dates (e.g. when booked), throws error if the dates are not available
+    public void removeAvailableDateRange(DateRange dateRange) {
+        getAvailableDateRanges().remove(dateRange);
+        availableDates = availableDateRanges.toList();
+    }
 
-                //does dateRange end at the start of existing date range
-            } else if (availableDateRange.getStartDate().isEqual(dateRange.getEndDate())) {
-                startsWhereNewDateRangeEnds = availableDateRange;
-            }
-        }
+    public boolean isAvailable(DateRange dateRange) {
+        return getAvailableDateRanges().contains(dateRange);
+    }
 
-        //if new dateRange is not adjacent to any exising date range
-        if (startsWhereNewDateRangeEnds == null && endWhereNewDateRangeStarts == null) {
-            availableDates.add(dateRange);
-
-            //if new daterange ends at existing daterange start date, extend existing adjacent daterange
-        } else if (startsWhereNewDateRangeEnds != null && endWhereNewDateRangeStarts == null) {
-            startsWhereNewDateRangeEnds.setStartDate(dateRange.getStartDate());
-            //if new daterange starts at existing daterange end date, extend existing adjacent daterange
-        } else if (startsWhereNewDateRangeEnds == null && endWhereNewDateRangeStarts != null) {
-            endWhereNewDateRangeStarts.setEndDate(dateRange.getEndDate());
-        //if it is adjacent to two existing dateranges
-        } else {
-            endWhereNewDateRangeStarts.setEndDate(startsWhereNewDateRangeEnds.getEndDate());
-            availableDates.remove(startsWhereNewDateRangeEnds);
+    //entities read from the database only have the list set, so the sorted structure is built on first use
+    private AvailableDateRanges getAvailableDateRanges() {
+        if (availableDateRanges == null) {
+            availableDateRanges = new AvailableDateRanges(availableDates);
         }
+        return availableDateRanges;
     }
-}
\ No newline at end of file
+}
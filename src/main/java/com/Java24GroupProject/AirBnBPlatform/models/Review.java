@@ -5,23 +5,36 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+//indexes for the reviews of a listing and of a user (created at startup by MongoIndexInitializer)
+//review pages are always of one listing or user, so the sort indexes start with listingId (a user has few reviews, they are
+//sorted in memory). listingId_createdAt_id_rating serves both the review feed (newest first, optional rating filter, see
+//ReviewRepositoryCustom) and pages sorted on createdAt (see Pagination.toPageRequest, id is always the last sort key, ascending)
 @Document(collection = "reviews")
+@CompoundIndexes({
+        @CompoundIndex(name = "listingId_createdAt_id_rating", def = "{'listingId': 1, 'createdAt': -1, '_id': 1, 'rating': 1}"),
+        @CompoundIndex(name = "listingId_rating_id", def = "{'listingId': 1, 'rating': -1, '_id': 1}"),
+        @CompoundIndex(name = "userId", def = "{'userId': 1}")
+})
 public class Review {
     @Id
     private String id;
 
-    @DBRef
+    //ids of the listing and the user (stored as ObjectId), userId is null if the user has been deleted
     @NotNull(message = "review must have a listing")
-    private Listing listing;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String listingId;
 
-    @DBRef
-    private User user;
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String userId;
     private String username;
 
     @NotNull(message = "An end date is required")
@@ -39,9 +52,9 @@ public class Review {
     public Review() {
     }
 
-    public Review(Listing listing, User user, String username, LocalDate endDate, Double rating) {
-        this.listing = listing;
-        this.user = user;
+    public Review(String listingId, String userId, String username, LocalDate endDate, Double rating) {
+        this.listingId = listingId;
+        this.userId = userId;
         this.username = username;
         this.endDate = endDate;
         this.rating = rating;
@@ -55,20 +68,20 @@ public class Review {
         this.id = id;
     }
 
-    public @NotNull(message = "review must have a listing") Listing getListing() {
-        return listing;
+    public @NotNull(message = "review must have a listing") String getListingId() {
+        return listingId;
     }
 
-    public void setListing(@NotNull(message = "review must have a listing") Listing listing) {
-        this.listing = listing;
+    public void setListingId(@NotNull(message = "review must have a listing") String listingId) {
+        this.listingId = listingId;
     }
 
-    public @NotNull(message = "review must have a user") User getUser() {
-        return user;
+    public String getUserId() {
+        return userId;
     }
 
-    public void setUser(@NotNull(message = "review must have a user") User user) {
-        this.user = user;
+    public void setUserId(String userId) {
+        this.userId = userId;
     }
 
     public String getUsername() {
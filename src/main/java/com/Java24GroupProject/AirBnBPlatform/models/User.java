@@ -6,8 +6,9 @@ import jakarta.validation.constraints.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -52,8 +53,9 @@ public class User {
 
     private String description;
 
-    @DBRef
-    private List<Listing> favorites;
+    //ids of the favorite listings (stored as ObjectIds)
+    @Field(targetType = FieldType.OBJECT_ID)
+    private List<String> favoriteListingIds;
 
     private Set<Role> roles;
 
@@ -128,20 +130,20 @@ public class User {
         this.description = description;
     }
 
-    public List<Listing> getFavorites() {
-        return favorites;
+    public List<String> getFavoriteListingIds() {
+        return favoriteListingIds;
     }
 
-    public void setFavorites(List<Listing> favorites) {
-        this.favorites = favorites;
+    public void setFavoriteListingIds(List<String> favoriteListingIds) {
+        this.favoriteListingIds = favoriteListingIds;
     }
 
-    public void addFavorite(Listing listing) {
-        favorites.add(listing);
+    public void addFavorite(String listingId) {
+        favoriteListingIds.add(listingId);
     }
 
-    public void removeFavorite(Listing listing) {
-        favorites.remove(listing);
+    public void removeFavorite(String listingId) {
+        favoriteListingIds.remove(listingId);
     }
 
     public Set<Role> getRoles() {
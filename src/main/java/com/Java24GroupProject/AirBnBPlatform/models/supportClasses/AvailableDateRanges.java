@@ -0,0 +1,145 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//help class for Listing model class, holds the available dates of a listing as sorted, non-overlapping date ranges
+//the ranges are kept in a TreeMap keyed on start date (as epoch day), so lookups, splits and merges are O(log n) instead of a list scan
+public class AvailableDateRanges {
+    private final TreeMap<Integer, DateRange> dateRangesByStartDay = new TreeMap<>();
+
+    public AvailableDateRanges() {
+    }
+
+    //build from a list (e.g. stored data or a ListingRequest), overlapping or adjacent date ranges are merged into one
+    public AvailableDateRanges(Collection<DateRange> dateRanges) {
+        if (dateRanges == null) {
+            return;
+        }
+        List<DateRange> sortedDateRanges = new ArrayList<>(dateRanges);
+        sortedDateRanges.sort(Comparator.comparingInt(DateRange::startDay));
+
+        DateRange current = null;
+        for (DateRange dateRange : sortedDateRanges) {
+            if (current == null) {
+                current = DateRange.ofEpochDays(dateRange.startDay(), dateRange.endDay());
+            } else if (dateRange.startDay() <= current.endDay()) {
+                if (dateRange.endDay() > current.endDay()) {
+                    current = DateRange.ofEpochDays(current.startDay(), dateRange.endDay());
+                }
+            } else {
+                dateRangesByStartDay.put(current.startDay(), current);
+                current = DateRange.ofEpochDays(dateRange.startDay(), dateRange.endDay());
+            }
+        }
+        if (current != null) {
+            dateRangesByStartDay.put(current.startDay(), current);
+        }
+    }
+
+    //date range with the greatest start date that is equal to or before date, null if there is none
+    public DateRange floor(LocalDate date) {
+        return floor(Math.toIntExact(date.toEpochDay()));
+    }
+
+    //date range with the smallest start date that is equal to or after date, null if there is none
+    public DateRange ceiling(LocalDate date) {
+        return ceiling(Math.toIntExact(date.toEpochDay()));
+    }
+
+    //available date range that fully contains dateRange, null if dateRange is not available
+    public DateRange findContaining(DateRange dateRange) {
+        //ranges do not overlap, so the only candidate is the last range starting on or before dateRange
+        DateRange candidate = floor(dateRange.startDay());
+        if (candidate != null && dateRange.isWithinAnotherDateRange(candidate)) {
+            return candidate;
+        }
+        return null;
+    }
+
+    public boolean contains(DateRange dateRange) {
+        return findContaining(dateRange) != null;
+    }
+
+    //add dates, merging with adjacent date ranges
+    public void add(DateRange dateRange) {
+        DateRange before = floor(dateRange.startDay());
+        DateRange after = ceiling(dateRange.startDay());
+
+        //if dates are identical to dates in list throw error
+        if (after != null && dateRange.isIdenticalToAnotherDateRange(after)) {
+            throw new IllegalArgumentException("dates could not be added, already in available dates for listing");
+        }
+
+        //since ranges are sorted and do not overlap, only the neighbours can overlap with the new dates
+        if ((before != null && dateRange.hasOverlapWithAnotherDateRange(before))
+                || (after != null && dateRange.hasOverlapWithAnotherDateRange(after))) {
+            throw new IllegalArgumentException("dates could not be added, as they overlap with existing available date ranges");
+        }
+
+        int startDay = dateRange.startDay();
+        int endDay = dateRange.endDay();
+
+        //does dateRange start at the end of existing date range
+        if (before != null && before.endDay() == startDay) {
+            dateRangesByStartDay.remove(before.startDay());
+            startDay = before.startDay();
+        }
+
+        //does dateRange end at the start of existing date range
+        if (after != null && after.startDay() == endDay) {
+            dateRangesByStartDay.remove(after.startDay());
+            endDay = after.endDay();
+        }
+
+        dateRangesByStartDay.put(startDay, DateRange.ofEpochDays(startDay, endDay));
+    }
+
+    //remove dates from the available date range containing them, splitting it if needed
+    public void remove(DateRange dateRange) {
+        DateRange containing = findContaining(dateRange);
+        if (containing == null) {
+            throw new IllegalArgumentException("booking dates not available on listing");
+        }
+
+        dateRangesByStartDay.remove(containing.startDay());
+
+        //keep what is left before and after the removed dates
+        if (containing.startDay() < dateRange.startDay()) {
+            dateRangesByStartDay.put(containing.startDay(), DateRange.ofEpochDays(containing.startDay(), dateRange.startDay()));
+        }
+        if (dateRange.endDay() < containing.endDay()) {
+            dateRangesByStartDay.put(dateRange.endDay(), DateRange.ofEpochDays(dateRange.endDay(), containing.endDay()));
+        }
+    }
+
+    public boolean isEmpty() {
+        return dateRangesByStartDay.isEmpty();
+    }
+
+    public int size() {
+        return dateRangesByStartDay.size();
+    }
+
+    //date ranges sorted on start date, this is the form stored in the database and returned in DTOs
+    public List<DateRange> toList() {
+        return new ArrayList<>(dateRangesByStartDay.values());
+    }
+
+    private DateRange floor(int day) {
+        Map.Entry<Integer, DateRange> entry = dateRangesByStartDay.floorEntry(day);
+        return entry == null ? null : entry.getValue();
+    }
+
+    private DateRange ceiling(int day) {
+        Map.Entry<Integer, DateRange> entry = dateRangesByStartDay.ceilingEntry(day);
+        return entry == null ? null : entry.getValue();
+    }
+}
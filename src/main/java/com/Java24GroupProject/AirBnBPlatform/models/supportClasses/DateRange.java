@@ -1,48 +1,65 @@
 package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
 
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.fasterxml.jackson.annotation.JsonCreator;
 
 import java.time.LocalDate;
 
+//dates are held as epoch days (days since 1970-01-01), so comparisons in availability and overlap checks are plain int
+//comparisons. LocalDate objects are only created by the getters, i.e. when converting to DTOs or to the database
+//(see MongoConfiguration for how a DateRange is stored)
+//DateRange is immutable, as AvailableDateRanges keeps date ranges in a map keyed on their start date
 public class DateRange {
-    private LocalDate startDate;
-    private LocalDate endDate;
+    private final int startDay;
+    private final int endDay;
 
+    @JsonCreator
     public DateRange(LocalDate startDate, LocalDate endDate) {
-        if (endDate.isBefore(startDate) || endDate.isEqual(startDate)) {
+        this(Math.toIntExact(startDate.toEpochDay()), Math.toIntExact(endDate.toEpochDay()));
+    }
+
+    private DateRange(int startDay, int endDay) {
+        if (endDay <= startDay) {
             throw new IllegalArgumentException("start date must be before end date");
         }
-        this.startDate = startDate;
-        this.endDate = endDate;
+        this.startDay = startDay;
+        this.endDay = endDay;
     }
 
-    public LocalDate getStartDate() {
-        return startDate;
+    public static DateRange ofEpochDays(int startDay, int endDay) {
+        return new DateRange(startDay, endDay);
     }
 
-    public void setStartDate(LocalDate startDate) {
-        this.startDate = startDate;
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(startDay);
     }
 
     public LocalDate getEndDate() {
-        return endDate;
+        return LocalDate.ofEpochDay(endDay);
+    }
+
+    //start and end date as epoch days, used internally instead of getStartDate/getEndDate
+    public int startDay() {
+        return startDay;
+    }
+
+    public int endDay() {
+        return endDay;
     }
 
-    public void setEndDate(LocalDate endDate) {
-        this.endDate = endDate;
+    public int numberOfNights() {
+        return endDay - startDay;
     }
 
     public boolean isWithinAnotherDateRange(DateRange availableDateRange) {
-        return (this.startDate.isEqual(availableDateRange.startDate) || this.startDate.isAfter(availableDateRange.startDate))
-                && (this.endDate.isEqual(availableDateRange.endDate) || this.endDate.isBefore(availableDateRange.endDate));
+        return this.startDay >= availableDateRange.startDay && this.endDay <= availableDateRange.endDay;
     }
 
     public boolean isIdenticalToAnotherDateRange(DateRange dateRange) {
-        return (this.startDate.isEqual(dateRange.startDate) && this.endDate.isEqual(dateRange.endDate));
+        return this.startDay == dateRange.startDay && this.endDay == dateRange.endDay;
     }
 
     public boolean hasOverlapWithAnotherDateRange(DateRange dateRange) {
-        return !((this.endDate.isEqual(dateRange.startDate) || this.endDate.isBefore(dateRange.startDate))
-                || (dateRange.endDate.isEqual(this.startDate) || dateRange.endDate.isBefore(this.startDate)));
+        return this.startDay < dateRange.endDay && dateRange.startDay < this.endDay;
     }
 }
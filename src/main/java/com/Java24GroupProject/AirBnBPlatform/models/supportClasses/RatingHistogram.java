@@ -0,0 +1,66 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+//help class for Listing model class, holds the number of review ratings of each star (1-5)
+//ratings that are not whole numbers are counted as the nearest star
+public class RatingHistogram {
+    private int oneStar;
+    private int twoStars;
+    private int threeStars;
+    private int fourStars;
+    private int fiveStars;
+
+    public RatingHistogram() {
+    }
+
+    //name of the field a rating is counted in (used for the atomic updates and the recompute in ListingRepositoryCustomImpl)
+    public static String fieldFor(double rating) {
+        long stars = Math.max(1, Math.min(5, Math.round(rating)));
+        return switch ((int) stars) {
+            case 1 -> "oneStar";
+            case 2 -> "twoStars";
+            case 3 -> "threeStars";
+            case 4 -> "fourStars";
+            default -> "fiveStars";
+        };
+    }
+
+    public int getOneStar() {
+        return oneStar;
+    }
+
+    public void setOneStar(int oneStar) {
+        this.oneStar = oneStar;
+    }
+
+    public int getTwoStars() {
+        return twoStars;
+    }
+
+    public void setTwoStars(int twoStars) {
+        this.twoStars = twoStars;
+    }
+
+    public int getThreeStars() {
+        return threeStars;
+    }
+
+    public void setThreeStars(int threeStars) {
+        this.threeStars = threeStars;
+    }
+
+    public int getFourStars() {
+        return fourStars;
+    }
+
+    public void setFourStars(int fourStars) {
+        this.fourStars = fourStars;
+    }
+
+    public int getFiveStars() {
+        return fiveStars;
+    }
+
+    public void setFiveStars(int fiveStars) {
+        this.fiveStars = fiveStars;
+    }
+}
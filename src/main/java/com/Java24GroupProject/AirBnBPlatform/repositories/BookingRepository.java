@@ -1,19 +1,35 @@
 package com.Java24GroupProject.AirBnBPlatform.repositories;
 
 import com.Java24GroupProject.AirBnBPlatform.models.Booking;
-import com.Java24GroupProject.AirBnBPlatform.models.Listing;
-import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends MongoRepository<Booking, String> {
-    List<Booking> findByUser(User user);
-    List<Booking> findByListing(Listing listing);
-    void deleteByListing(Listing listing);
-    List<Booking> deleteByUser(User user);
+    //only the listing id of the booking is read (used to lock the listing before the booking is read and changed)
+    @Query(fields = "{ 'listingId': 1 }")
+    Optional<Booking> findListingIdById(String id);
+    List<Booking> findByUserId(String userId);
+    List<Booking> findByListingId(String listingId);
+    List<Booking> findByListingIdAndBookingStatusIn(String listingId, Collection<BookingStatus> bookingStatuses);
+    //paginated queries, id is the cursor (see Pagination), only bookings with a greater id are returned
+    Slice<Booking> findByIdGreaterThan(String id, Pageable pageable);
+    Slice<Booking> findByUserIdAndIdGreaterThan(String userId, String id, Pageable pageable);
+    Slice<Booking> findByListingIdAndIdGreaterThan(String listingId, String id, Pageable pageable);
+    //all bookings, read from a database cursor in batches (used for export), the stream must be closed after use
+    @Meta(cursorBatchSize = 500)
+    Stream<Booking> streamAllBy();
+    void deleteByListingId(String listingId);
+    List<Booking> deleteByUserId(String userId);
     // Find a booking by user and listing
-    Optional<Booking> findByUserAndListing(User user, Listing listing);
+    Optional<Booking> findByUserIdAndListingId(String userId, String listingId);
     // Find all bookings for a specific user that have ended (end date is in the past)
 }
@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface HostRatingRepository extends MongoRepository<HostRating, String>, HostRatingRepositoryCustom {
+}
@@ -0,0 +1,12 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+//queries on host ratings that cannot be derived from method names, implemented in HostRatingRepositoryCustomImpl
+public interface HostRatingRepositoryCustom {
+    //atomically add ratingSumChange to ratingSum and reviewCount change to reviewCount of a host and update averageRating,
+    //e.g. (5, 1) when a review with rating 5 is created on a listing of the host, and (-ratingSum, -ratingCount) of a listing
+    //when the listing is deleted. The host rating is created if the host does not have one yet
+    void changeRatings(String hostId, double ratingSumChange, int reviewCountChange);
+
+    //recompute the ratings of all hosts from the ratings stored on their listings, returns the number of hosts
+    int recomputeRatings();
+}
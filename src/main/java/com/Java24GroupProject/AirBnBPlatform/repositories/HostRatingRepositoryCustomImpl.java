@@ -0,0 +1,91 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+//implementation of HostRatingRepositoryCustom, picked up by Spring Data and merged into HostRatingRepository
+public class HostRatingRepositoryCustomImpl implements HostRatingRepositoryCustom {
+    private static final String LISTINGS_COLLECTION = "listings";
+    private static final int RECOMPUTE_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public HostRatingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void changeRatings(String hostId, double ratingSumChange, int reviewCountChange) {
+        //same kind of update pipeline as ListingRepositoryCustomImpl.addRating, done by MongoDB in a single operation
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("ratingSum").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("ratingSum").then(0)).add(ratingSumChange))
+                .set("reviewCount").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("reviewCount").then(0)).add(reviewCountChange))
+                .set("averageRating").toValue(ConditionalOperators.when(ComparisonOperators.valueOf("reviewCount").greaterThanValue(0))
+                        .then(ArithmeticOperators.valueOf("ratingSum").divideBy("reviewCount"))
+                        .otherwise(0.0));
+
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(hostId)), update, HostRating.class);
+    }
+
+    @Override
+    public int recomputeRatings() {
+        //sum the listing ratings per host, only the host id and rating fields are read from each listing
+        Map<String, HostRating> ratingsByHost = new HashMap<>();
+        Query listingQuery = new Query();
+        listingQuery.fields().include("hostId", "ratingSum", "ratingCount");
+        listingQuery.cursorBatchSize(RECOMPUTE_BATCH_SIZE);
+        try (Stream<Document> listings = mongoTemplate.stream(listingQuery, Document.class, LISTINGS_COLLECTION)) {
+            listings.forEach(listing -> {
+                if (listing.get("hostId") instanceof ObjectId hostId) {
+                    HostRating hostRating = ratingsByHost.computeIfAbsent(hostId.toHexString(), id -> {
+                        HostRating newHostRating = new HostRating();
+                        newHostRating.setRatingSum(0.0);
+                        newHostRating.setReviewCount(0);
+                        return newHostRating;
+                    });
+                    if (listing.get("ratingSum") instanceof Number ratingSum && listing.get("ratingCount") instanceof Number ratingCount) {
+                        hostRating.setRatingSum(hostRating.getRatingSum() + ratingSum.doubleValue());
+                        hostRating.setReviewCount(hostRating.getReviewCount() + ratingCount.intValue());
+                    }
+                }
+            });
+        }
+
+        //replace the ratings of every host, in batches of updates
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HostRating.class);
+        int updatesInBatch = 0;
+        for (Map.Entry<String, HostRating> entry : ratingsByHost.entrySet()) {
+            HostRating hostRating = entry.getValue();
+            updates.upsert(new Query(Criteria.where("id").is(entry.getKey())), new Update()
+                    .set("ratingSum", hostRating.getRatingSum())
+                    .set("reviewCount", hostRating.getReviewCount())
+                    .set("averageRating", hostRating.getReviewCount() > 0 ? hostRating.getRatingSum() / hostRating.getReviewCount() : 0.0));
+            if (++updatesInBatch == RECOMPUTE_BATCH_SIZE) {
+                updates.execute();
+                updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HostRating.class);
+                updatesInBatch = 0;
+            }
+        }
+        if (updatesInBatch > 0) {
+            updates.execute();
+        }
+
+        //remove ratings of users that no longer have any listings
+        mongoTemplate.remove(new Query(Criteria.where("id").nin(ratingsByHost.keySet())), HostRating.class);
+        return ratingsByHost.size();
+    }
+}
@@ -1,26 +1,51 @@
 package com.Java24GroupProject.AirBnBPlatform.repositories;
 
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
-import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface ListingRepository extends MongoRepository<Listing, String> {
-    //find based on host
-    List<Listing> findByHost(User user);
-    //find based on location (city)
-    List<Listing> findByLocation(String location);
+public interface ListingRepository extends MongoRepository<Listing, String>, ListingRepositoryCustom {
+    //find based on host, only title and ratings are read (used for host profiles)
+    @Query(fields = "{ 'title': 1, 'ratingCount': 1, 'averageRating': 1 }")
+    List<Listing> findRatingsByHostId(String hostId);
+    //only the host id of the listing is read (used to update the host rating when a review is deleted)
+    @Query(fields = "{ 'hostId': 1 }")
+    Optional<Listing> findHostIdById(String id);
+    //titles of listings, used for favorites (listings that do not exist are left out)
+    @Query(fields = "{ 'title': 1 }")
+    List<Listing> findTitlesByIdIn(Collection<String> ids);
     //delete by user
-    List<Listing> deleteByHost(User user);
+    List<Listing> deleteByHostId(String hostId);
+
+    //paginated queries, id is the cursor (see Pagination), only listings with a greater id are returned
+    Slice<Listing> findByIdGreaterThan(String id, Pageable pageable);
+    Slice<Listing> findByHostIdAndIdGreaterThan(String hostId, String id, Pageable pageable);
+    //find based on location (city)
+    Slice<Listing> findByLocationAndIdGreaterThan(String location, String id, Pageable pageable);
     //find based on price interval
     // query to get listings that matches min/max price. https://stackoverflow.com/questions/32846996/mongodb-query-using-gte-and-lte-in-java
-    @Query("{ 'pricePerNight': { $gte: ?0, $lte: ?1 } }")
-    List<Listing> findByPricePerNightBetween(double minPrice, double maxPrice);
-    @Query("{ 'capacity': { $gte:  ?0, $lte:  ?1 } }")
-    List<Listing> findByCapacityBetween(double minCapacity, double maxCapacity);
-    List<Listing> findByUtilities(String utility);
+    @Query("{ 'pricePerNight': { $gte: ?0, $lte: ?1 }, '_id': { $gt: ?2 } }")
+    Slice<Listing> findByPricePerNightBetweenAndIdGreaterThan(double minPrice, double maxPrice, String id, Pageable pageable);
+    @Query("{ 'capacity': { $gte:  ?0, $lte:  ?1 }, '_id': { $gt: ?2 } }")
+    Slice<Listing> findByCapacityBetweenAndIdGreaterThan(double minCapacity, double maxCapacity, String id, Pageable pageable);
+    Slice<Listing> findByUtilitiesInAndIdGreaterThan(Set<ListingUtilities> utilities, String id, Pageable pageable);
+    //all listings, read from a database cursor in batches (used for export), the stream must be closed after use
+    @Meta(cursorBatchSize = 500)
+    Stream<Listing> streamAllBy();
+    //id, location and utilities of all listings sorted on id, used to build ListingSearchIndex
+    @Meta(cursorBatchSize = 1000)
+    @Query(value = "{}", fields = "{ 'location': 1, 'utilities': 1 }", sort = "{ '_id': 1 }")
+    Stream<Listing> streamSearchIndexFieldsBy();
 
 
 }
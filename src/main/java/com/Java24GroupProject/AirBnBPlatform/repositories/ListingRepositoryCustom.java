@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchRequest;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//queries for listings that cannot be expressed as MongoRepository methods, implemented in ListingRepositoryCustomImpl
+public interface ListingRepositoryCustom {
+    //atomically replace the available dates of a listing, only if they are still equal to expectedAvailableDates
+    //returns false if another request has changed the available dates in between (nothing is updated)
+    boolean updateAvailableDatesIfUnchanged(String listingId, List<DateRange> expectedAvailableDates, List<DateRange> newAvailableDates, LocalDateTime updatedAt);
+
+    //save the fields of a listing that the host can change (title, price...), the rating fields are not changed so ratings added
+    //by other requests in the meantime are kept. The available dates are not saved either, they are only changed with
+    //updateAvailableDatesIfUnchanged
+    void updateListingDetails(Listing listing);
+
+    //atomically add the rating of a new review to ratingSum, ratingCount and ratingHistogram of a listing and update
+    //averageRating and bayesianRating
+    void addRating(String listingId, double rating);
+
+    //same as addRating, for when a review is deleted
+    void removeRating(String listingId, double rating);
+
+    //set the host name stored on all listings of a host (when the host changes username)
+    void updateHostName(String hostId, String hostName);
+
+    //recompute all rating fields of all listings from their reviews, returns the number of listings
+    //(for existing data, and to repair ratings if needed)
+    int recomputeRatings();
+
+    //find listings matching all filters set in searchRequest (filters that are null are not used) with a single query,
+    //id is the cursor (see Pagination), only listings with a greater id are returned
+    Slice<Listing> search(ListingSearchRequest searchRequest, String id, Pageable pageable);
+}
@@ -0,0 +1,202 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchRequest;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingHistogram;
+import com.Java24GroupProject.AirBnBPlatform.util.RatingScore;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//implementation of ListingRepositoryCustom, picked up by Spring Data and merged into ListingRepository
+public class ListingRepositoryCustomImpl implements ListingRepositoryCustom {
+    private static final String LISTINGS_COLLECTION = "listings";
+    private static final String REVIEWS_COLLECTION = "reviews";
+    //number of stars a review rating is counted as in the histogram, same as RatingHistogram.fieldFor (round half up, 1-5)
+    private static final Document STARS_OF_RATING = new Document("$max", List.of(1,
+            new Document("$min", List.of(5, new Document("$floor", new Document("$add", List.of("$rating", 0.5)))))));
+
+    private final MongoTemplate mongoTemplate;
+    private final RatingScore ratingScore;
+
+    public ListingRepositoryCustomImpl(MongoTemplate mongoTemplate, RatingScore ratingScore) {
+        this.mongoTemplate = mongoTemplate;
+        this.ratingScore = ratingScore;
+    }
+
+    @Override
+    public boolean updateAvailableDatesIfUnchanged(String listingId, List<DateRange> expectedAvailableDates, List<DateRange> newAvailableDates, LocalDateTime updatedAt) {
+        //the filter on the current available dates makes this a compare-and-set, done by MongoDB in a single operation
+        Query query = new Query(Criteria.where("id").is(listingId)
+                .and("availableDates").is(expectedAvailableDates));
+        Update update = new Update()
+                .set("availableDates", newAvailableDates)
+                .set("updatedAt", updatedAt);
+
+        return mongoTemplate.updateFirst(query, update, Listing.class).getMatchedCount() == 1;
+    }
+
+    @Override
+    public void updateListingDetails(Listing listing) {
+        Query query = new Query(Criteria.where("id").is(listing.getId()));
+        Update update = new Update()
+                .set("title", listing.getTitle())
+                .set("description", listing.getDescription())
+                .set("pricePerNight", listing.getPricePerNight())
+                .set("capacity", listing.getCapacity())
+                .set("utilities", listing.getUtilities())
+                .set("location", listing.getLocation())
+                .set("imageUrls", listing.getImageUrls())
+                .set("updatedAt", listing.getUpdatedAt());
+
+        mongoTemplate.updateFirst(query, update, Listing.class);
+    }
+
+    @Override
+    public void addRating(String listingId, double rating) {
+        changeRating(listingId, rating, 1);
+    }
+
+    @Override
+    public void removeRating(String listingId, double rating) {
+        changeRating(listingId, rating, -1);
+    }
+
+    //add (countChange 1) or remove (countChange -1) a rating
+    private void changeRating(String listingId, double rating, int countChange) {
+        //update pipeline, done by MongoDB in a single operation: the first stages change sum, count and histogram (missing fields
+        //count as 0), the last stages compute the average and bayesian rating from the new sum and count
+        String histogramField = "ratingHistogram." + RatingHistogram.fieldFor(rating);
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("ratingSum").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("ratingSum").then(0)).add(rating * countChange))
+                .set("ratingCount").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("ratingCount").then(0)).add(countChange))
+                .set(histogramField).toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull(histogramField).then(0)).add(countChange))
+                .set("averageRating").toValue(ConditionalOperators.when(ComparisonOperators.valueOf("ratingCount").greaterThanValue(0))
+                        .then(ArithmeticOperators.valueOf("ratingSum").divideBy("ratingCount"))
+                        .otherwise(0.0))
+                .set("bayesianRating").toValue(ArithmeticOperators.valueOf(ArithmeticOperators.valueOf("ratingSum").add(ratingScore.getPriorWeight() * ratingScore.getPriorMean()))
+                        .divideBy(ArithmeticOperators.valueOf("ratingCount").add(ratingScore.getPriorWeight())));
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(listingId)), update, Listing.class);
+    }
+
+    @Override
+    public void updateHostName(String hostId, String hostName) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("hostId").is(new ObjectId(hostId))),
+                new Update().set("hostName", hostName), Listing.class);
+    }
+
+    @Override
+    public int recomputeRatings() {
+        /*done by MongoDB in one aggregation over the listings, no reviews are sent to the app: the reviews of each listing are
+        grouped into sum, count and histogram ($lookup on reviews.listingId, which is the first field of the review indexes),
+        listings without reviews get an empty group, the rating fields are computed from it and merged into the listing*/
+        Document emptyRatings = new Document("sum", 0.0).append("count", 0);
+        Document reviewGroup = new Document("_id", null)
+                .append("sum", new Document("$sum", "$rating"))
+                .append("count", new Document("$sum", 1));
+        Document histogram = new Document();
+        for (int stars = 1; stars <= 5; stars++) {
+            String field = RatingHistogram.fieldFor(stars);
+            reviewGroup.append(field, new Document("$sum", new Document("$cond", List.of(new Document("$eq", List.of(STARS_OF_RATING, stars)), 1, 0))));
+            emptyRatings.append(field, 0);
+            histogram.append(field, "$ratings." + field);
+        }
+
+        List<Document> pipeline = List.of(
+                new Document("$project", new Document("_id", 1)),
+                new Document("$lookup", new Document("from", REVIEWS_COLLECTION)
+                        .append("localField", "_id")
+                        .append("foreignField", "listingId")
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("rating", new Document("$type", "number"))),
+                                new Document("$group", reviewGroup)))
+                        .append("as", "ratings")),
+                new Document("$set", new Document("ratings",
+                        new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$ratings", 0)), emptyRatings)))),
+                new Document("$project", new Document("_id", 1)
+                        .append("ratingSum", "$ratings.sum")
+                        .append("ratingCount", "$ratings.count")
+                        .append("ratingHistogram", histogram)
+                        .append("averageRating", new Document("$cond", List.of(
+                                new Document("$gt", List.of("$ratings.count", 0)),
+                                new Document("$divide", List.of("$ratings.sum", "$ratings.count")),
+                                0.0)))
+                        .append("bayesianRating", new Document("$divide", List.of(
+                                new Document("$add", List.of("$ratings.sum", ratingScore.getPriorWeight() * ratingScore.getPriorMean())),
+                                new Document("$add", List.of("$ratings.count", ratingScore.getPriorWeight())))))),
+                new Document("$merge", new Document("into", LISTINGS_COLLECTION)
+                        .append("on", "_id")
+                        .append("whenMatched", "merge")
+                        .append("whenNotMatched", "discard")));
+
+        mongoTemplate.getCollection(LISTINGS_COLLECTION).aggregate(pipeline).toCollection();
+        return (int) mongoTemplate.count(new Query(), Listing.class);
+    }
+
+    @Override
+    public Slice<Listing> search(ListingSearchRequest searchRequest, String id, Pageable pageable) {
+        //all filters are combined into one query, the compound indexes on Listing cover the common filter combinations
+        Criteria criteria = Criteria.where("id").gt(id);
+
+        if (searchRequest.getMinPrice() != null || searchRequest.getMaxPrice() != null) {
+            //pricePerNight is stored as decimal128, BigDecimal values would otherwise be compared as strings
+            Criteria price = criteria.and("pricePerNight");
+            if (searchRequest.getMinPrice() != null) {
+                price.gte(new Decimal128(searchRequest.getMinPrice()));
+            }
+            if (searchRequest.getMaxPrice() != null) {
+                price.lte(new Decimal128(searchRequest.getMaxPrice()));
+            }
+        }
+
+        if (searchRequest.getMinCapacity() != null || searchRequest.getMaxCapacity() != null) {
+            Criteria capacity = criteria.and("capacity");
+            if (searchRequest.getMinCapacity() != null) {
+                capacity.gte(searchRequest.getMinCapacity());
+            }
+            if (searchRequest.getMaxCapacity() != null) {
+                capacity.lte(searchRequest.getMaxCapacity());
+            }
+        }
+
+        if (searchRequest.getLocation() != null) {
+            criteria.and("location").is(searchRequest.getLocation());
+        }
+
+        if (searchRequest.getUtilities() != null && !searchRequest.getUtilities().isEmpty()) {
+            criteria.and("utilities").all(searchRequest.getUtilities());
+        }
+
+        if (searchRequest.getMinRating() != null) {
+            criteria.and("averageRating").gte(searchRequest.getMinRating());
+        }
+
+        //a single available date range must cover the whole period
+        if (searchRequest.getStartDate() != null) {
+            criteria.and("availableDates").elemMatch(Criteria.where("startDate").lte(searchRequest.getStartDate())
+                    .and("endDate").gte(searchRequest.getEndDate()));
+        }
+
+        //one extra listing is fetched to know if there is a next page, without counting all matches
+        Query query = new Query(criteria).with(pageable).limit(pageable.getPageSize() + 1);
+        List<Listing> listings = mongoTemplate.find(query, Listing.class);
+        boolean hasNext = listings.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? listings.subList(0, pageable.getPageSize()) : listings, pageable, hasNext);
+    }
+}
@@ -1,24 +1,21 @@
 package com.Java24GroupProject.AirBnBPlatform.repositories;
 
-import com.Java24GroupProject.AirBnBPlatform.models.Listing;
 import com.Java24GroupProject.AirBnBPlatform.models.Review;
-import com.Java24GroupProject.AirBnBPlatform.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
     // Find all reviews for a specific listing
-    List<Review> findByListing_Id(String listingId);
+    List<Review> findByListingId(String listingId);
     // Find all reviews for a specific user
-    List<Review> findByUser_Id(String userId);
-    List<Review> findByUser(User user);
-    void deleteByListing(Listing listing);
-
-
-/*  Not used at the moment
-    // Find all reviews for a specific host (via the listing's host)
-    @Query("{ 'listing.host.$id.$oid': ?0 }")
-    List<Review> findByListing_Host_Id(String hostId); */
-
+    List<Review> findByUserId(String userId);
+    //paginated queries, id is the cursor (see Pagination), only reviews with a greater id are returned
+    Slice<Review> findByListingIdAndIdGreaterThan(String listingId, String id, Pageable pageable);
+    Slice<Review> findByUserIdAndIdGreaterThan(String userId, String id, Pageable pageable);
+    void deleteByListingId(String listingId);
+    //delete review, returns the number of deleted reviews (0 if the review was already deleted, e.g. by a concurrent request)
+    long removeById(String id);
 }
@@ -0,0 +1,23 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//queries for reviews that cannot be expressed as MongoRepository methods, implemented in ReviewRepositoryCustomImpl
+public interface ReviewRepositoryCustom {
+    //up to limit reviews of a listing, newest first (createdAt descending, then id ascending), starting after the review with
+    //createdAt beforeCreatedAt and id beforeId (both null for the first page), only reviews with rating >= minRating if not null
+    List<Review> findFeedPage(String listingId, LocalDateTime beforeCreatedAt, String beforeId, Double minRating, int limit);
+
+    //delete all reviews of a listing, returns the deleted reviews (only id and rating are read), so the ratings that are
+    //subtracted from the host are exactly those of the deleted reviews
+    List<Review> removeByListingIdReturningRatings(String listingId);
+
+    //set the username stored on all reviews written by the user (when the user changes username)
+    void updateUsername(String userId, String username);
+
+    //remove the user from all reviews written by the user (when the user is deleted), the reviews themselves are kept
+    void removeUser(String userId, String deletedUsername);
+}
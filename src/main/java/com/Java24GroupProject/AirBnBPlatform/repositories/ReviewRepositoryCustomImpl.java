@@ -0,0 +1,62 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//implementation of ReviewRepositoryCustom, picked up by Spring Data and merged into ReviewRepository
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public ReviewRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Review> findFeedPage(String listingId, LocalDateTime beforeCreatedAt, String beforeId, Double minRating, int limit) {
+        //all filters and the sort are on fields of the listingId_createdAt_id_rating index, so MongoDB reads the reviews in index
+        //order and stops after limit matches, the rating filter is checked on the index entries before any review is fetched
+        Criteria criteria = Criteria.where("listingId").is(new ObjectId(listingId));
+        if (beforeCreatedAt != null) {
+            //keyset condition: createdAt < beforeCreatedAt, or the same createdAt and _id > beforeId, written as a range on
+            //createdAt so the index bounds start at the cursor, and the reviews with the same createdAt that were already
+            //returned are excluded
+            criteria.and("createdAt").lte(beforeCreatedAt)
+                    .norOperator(Criteria.where("createdAt").is(beforeCreatedAt).and("_id").lte(new ObjectId(beforeId)));
+        }
+        if (minRating != null) {
+            criteria.and("rating").gte(minRating);
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("_id")))
+                .limit(limit);
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public List<Review> removeByListingIdReturningRatings(String listingId) {
+        Query query = new Query(Criteria.where("listingId").is(new ObjectId(listingId)));
+        query.fields().include("rating");
+        return mongoTemplate.findAllAndRemove(query, Review.class);
+    }
+
+    @Override
+    public void updateUsername(String userId, String username) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("userId").is(new ObjectId(userId))),
+                new Update().set("username", username), Review.class);
+    }
+
+    @Override
+    public void removeUser(String userId, String deletedUsername) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("userId").is(new ObjectId(userId))),
+                new Update().set("userId", null).set("username", deletedUsername), Review.class);
+    }
+}
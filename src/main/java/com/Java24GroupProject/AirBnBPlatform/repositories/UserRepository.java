@@ -1,6 +1,8 @@
 package com.Java24GroupProject.AirBnBPlatform.repositories;
 
 import com.Java24GroupProject.AirBnBPlatform.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
@@ -10,6 +12,8 @@ public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Optional<User> findByPhoneNr(String phoneNr);
+    //paginated query, id is the cursor (see Pagination), only users with a greater id are returned
+    Slice<User> findByIdGreaterThan(String id, Pageable pageable);
 
 
 
@@ -0,0 +1,22 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+//The security principal of a logged-in user (set in the security context by JwtAuthenticationFilter)
+//carries the User fetched when the user was authenticated, so services do not have to fetch the user again
+//the User may be shared with other requests (see UserPrincipalCache) and must not be changed
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+    private final User user;
+
+    AuthenticatedUser(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getUsername(), user.getPassword(), authorities);
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -2,6 +2,7 @@ package com.Java24GroupProject.AirBnBPlatform.services;
 
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
@@ -15,46 +16,73 @@ import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingLockManager;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.Pagination;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
+    //number of bookings converted together when exporting, their users are fetched with one query per batch
+    private static final int EXPORT_BATCH_SIZE = 500;
+    //fields that booking pages can be sorted on (besides id)
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "updatedAt", "bookingStatus");
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ListingRepository listingRepository;
+    private final ListingLockManager listingLockManager;
+    private final ListingResponseCache listingResponseCache;
 
-    public BookingService(BookingRepository bookingRepository, UserRepository userRepository, ListingRepository listingRepository) {
+    public BookingService(BookingRepository bookingRepository, UserRepository userRepository, ListingRepository listingRepository, ListingLockManager listingLockManager, ListingResponseCache listingResponseCache) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.listingRepository = listingRepository;
+        this.listingLockManager = listingLockManager;
+        this.listingResponseCache = listingResponseCache;
     }
 
     //METHODS used by BOOKING CONTROLLER CLASS -----------------------------------------------------------------------
 
     public BookingResponse createBooking(BookingRequest bookingRequest) {
-        //validate that bookingRequest data is valid
-        validateBooking(bookingRequest);
-
-        //convert from RequestDTO to Booking
-        Booking booking = convertRequestToBooking(bookingRequest);
-
-        //validate that booking dates are available and update listing dates
-        validateBookingDatesAndUpdateListing(booking);
-        booking.setBookingStatus(BookingStatus.PENDING);
-        booking.setUpdatedAt(null);
-
-        //save booking
-        bookingRepository.save(booking);
-
-        //return as DTO
-        return convertToDTOResponse(booking);
+        //bookings of the same listing are created/changed one at a time
+        return listingLockManager.withListingLock(bookingRequest.getListingId(), () -> {
+            //get current user and listing once, they are passed on to the methods below instead of being fetched again
+            BookingContext context = new BookingContext(
+                    UserService.verifyAuthenticationAndExtractUser(userRepository),
+                    validateListingIdAndGetListing(bookingRequest));
+
+            //validate that bookingRequest data is valid
+            validateBooking(bookingRequest, context);
+
+            //convert from RequestDTO to Booking
+            Booking booking = convertRequestToBooking(bookingRequest, context);
+
+            //validate that booking dates are available and update listing dates
+            validateBookingDatesAndUpdateListing(booking, context.listing());
+            booking.setBookingStatus(BookingStatus.PENDING);
+            booking.setUpdatedAt(null);
+
+            //save booking
+            bookingRepository.save(booking);
+
+            //return as DTO
+            return convertToDTOResponse(booking, context.currentUser());
+        });
     }
 
     //get bookings by id
@@ -66,180 +94,229 @@ public class BookingService {
     }
 
     //get all bookings
-    public List<BookingResponse> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
-        return bookings.stream()
-                .map(this::convertToDTOResponse)
-                .collect(Collectors.toList());
+    public PageResponse<BookingResponse> getAllBookings(Pageable pageable, String after) {
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Booking> bookings = bookingRepository.findByIdGreaterThan(Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(bookings, convertToDTOResponses(bookings.getContent()), Booking::getId);
     }
 
     //get bookings any user
-    public List<BookingResponse> getBookingsByUserId(String userId) {
+    public PageResponse<BookingResponse> getBookingsByUserId(String userId, Pageable pageable, String after) {
         //validate user id
         User user = UserService.validateUserIdAndReturnUser(userId, userRepository);
 
-        return getUserBookings(user);
+        return getUserBookings(user, pageable, after);
     }
 
     //get bookings current user
-    public List<BookingResponse> getBookingsCurrentUser() {
+    public PageResponse<BookingResponse> getBookingsCurrentUser(Pageable pageable, String after) {
         //get current user
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getUserBookings(currentUser);
+        return getUserBookings(currentUser, pageable, after);
     }
 
     //get current listings bookingId
-    public List<BookingResponse> getBookingsByListingId(String listingId) {
+    public PageResponse<BookingResponse> getBookingsByListingId(String listingId, Pageable pageable, String after) {
         Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
         //check that current user is owner of listing or admin
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        if (!currentUser.getId().equals(listing.getHost().getId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+        if (!currentUser.getId().equals(listing.getHostId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
             throw new UnauthorizedException("Only the listing host and admin can see all bookings for a listing");
         }
 
         //convert toDTO and return
-        List<Booking> bookings = bookingRepository.findByListing(listing);
-        return bookings.stream()
-                .map(this::convertToDTOResponse)
-                .collect(Collectors.toList());
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Booking> bookings = bookingRepository.findByListingIdAndIdGreaterThan(listingId, Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(bookings, convertToDTOResponses(bookings.getContent()), Booking::getId);
     }
 
     public BookingResponse updateBooking(String id, BookingRequest updatedBookingRequest) {
-        //validate booking id
-        Booking booking = validateBookingIdAndGetBooking(id);
-
-        //check that current user is owner of booking
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        if (!currentUser.getId().equals(booking.getUser().getId())) {
-            throw new UnauthorizedException("Only the owner of the booking can update the booking");
-        }
+        //bookings of the same listing are created/changed one at a time, the listing of a booking cannot be changed so the listing id
+        //of the request is used for the lock (checked against the booking below).
+        //the booking is read inside the lock so that its status is not changed by another request while this one runs
+        return listingLockManager.withListingLock(updatedBookingRequest.getListingId(), () -> {
+            //validate booking id
+            Booking booking = validateBookingIdAndGetBooking(id);
+
+            //check that current user is owner of booking
+            User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+            if (!currentUser.getId().equals(booking.getUserId())) {
+                throw new UnauthorizedException("Only the owner of the booking can update the booking");
+            }
 
-        //check if status is pending, otherwise cannot be changed
-        if (booking.getBookingStatus() != BookingStatus.PENDING) {
-            throw new UnsupportedOperationException("Accepted or rejected bookings cannot be updated");
-        }
+            //check if status is pending, otherwise cannot be changed
+            if (booking.getBookingStatus() != BookingStatus.PENDING) {
+                throw new UnsupportedOperationException("Accepted or rejected bookings cannot be updated");
+            }
 
-        //listing of booking cannot be changed
-        if (!booking.getListing().getId().equals(updatedBookingRequest.getListingId())) {
-            throw new IllegalArgumentException("Listing cannot be changed");
-        }
+            //listing of booking cannot be changed
+            if (!booking.getListingId().equals(updatedBookingRequest.getListingId())) {
+                throw new IllegalArgumentException("Listing cannot be changed");
+            }
 
-        //validate data in new booking
-        validateBooking(updatedBookingRequest);
+            BookingContext context = new BookingContext(currentUser,
+                    ListingService.validateListingIdAndGetListing(booking.getListingId(), listingRepository));
 
-        //convert DTO to booking object
-        Booking updatedBooking = convertRequestToBooking(updatedBookingRequest);
+            //validate data in new booking
+            validateBooking(updatedBookingRequest, context);
 
-        //if booking dates are changed
-        if (!booking.getBookingDates().getStartDate().equals(updatedBooking.getBookingDates().getStartDate()) ||
-                !booking.getBookingDates().getEndDate().equals(updatedBooking.getBookingDates().getEndDate())) {
+            //convert DTO to booking object
+            Booking updatedBooking = convertRequestToBooking(updatedBookingRequest, context);
 
-            //add back the old dates
-            Listing listing = validateListingIdAndGetListing(booking);
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listingRepository.save(listing);
+            //if booking dates are changed
+            if (!booking.getBookingDates().isIdenticalToAnotherDateRange(updatedBooking.getBookingDates())) {
 
-            //subtract new dates from listing
-            validateBookingDatesAndUpdateListing(updatedBooking);
-            booking.setBookingDates(updatedBooking.getBookingDates());
-        }
+                //add back the old dates and subtract the new dates from listing in one update
+                //(if the new dates are not available, nothing is changed)
+                ListingService.updateAvailableDates(context.listing(), listing -> {
+                    listing.addAvailableDateRange(booking.getBookingDates());
+                    reserveBookingDates(listing, updatedBooking.getBookingDates());
+                }, listingRepository, listingResponseCache);
+                booking.setBookingDates(updatedBooking.getBookingDates());
+            }
 
-        //update other booking data booking
-        booking.setNumberOfGuests(updatedBooking.getNumberOfGuests());
+            //update other booking data booking
+            booking.setNumberOfGuests(updatedBooking.getNumberOfGuests());
 
-        //update updatedAt
-        booking.setUpdatedAt(LocalDateTime.now());
+            //update updatedAt
+            booking.setUpdatedAt(LocalDateTime.now());
 
-        //save booking
-        bookingRepository.save(booking);
+            //save booking
+            bookingRepository.save(booking);
 
-        //return as DTO
-        return convertToDTOResponse(booking);
+            //return as DTO
+            return convertToDTOResponse(booking, currentUser);
+        });
     }
 
     public BookingResponse acceptOrRejectBooking(String id, boolean isAccepted) {
-        //get booking from repository
-        Booking booking = validateBookingIdAndGetBooking(id);
-
-        //check that booking status is pending
-        if (booking.getBookingStatus() != BookingStatus.PENDING) {
-            throw new UnsupportedOperationException("Booking has already been accepted or rejected");
-        }
+        //bookings of the same listing are created/changed one at a time,
+        //the booking is read inside the lock so that its status is not changed by another request while this one runs
+        return listingLockManager.withListingLock(getListingIdOfBooking(id), () -> {
+            //get booking from repository
+            Booking booking = validateBookingIdAndGetBooking(id);
+
+            //check that booking status is pending
+            if (booking.getBookingStatus() != BookingStatus.PENDING) {
+                throw new UnsupportedOperationException("Booking has already been accepted or rejected");
+            }
 
-        //get current logged-in user
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+            //get current logged-in user
+            User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
 
-        //get listing for the booking (to check that the current user is the host of the listing)
-        Listing listing = validateListingIdAndGetListing(booking);
+            //get listing for the booking (to check that the current user is the host of the listing)
+            Listing listing = ListingService.validateListingIdAndGetListing(booking.getListingId(), listingRepository);
 
-        //check that current user is the host of the listing the booking refers to, otherwise cast error
-        if (!listing.getHost().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("only the listing host can accept/reject a booking");
-        }
+            //check that current user is the host of the listing the booking refers to, otherwise cast error
+            if (!listing.getHostId().equals(currentUser.getId())) {
+                throw new UnauthorizedException("only the listing host can accept/reject a booking");
+            }
 
-        //if booking is accepted change status to accepted
-        if (isAccepted) {
-            booking.setBookingStatus(BookingStatus.ACCEPTED);
-        //if the booking is rejected, add back the booking dates to available dates and change status to rejected
-        } else {
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listing.setUpdatedAt(LocalDateTime.now());
-            listingRepository.save(listing);
-            booking.setBookingStatus(BookingStatus.REJECTED);
-        }
+            //if booking is accepted change status to accepted
+            if (isAccepted) {
+                booking.setBookingStatus(BookingStatus.ACCEPTED);
+            //if the booking is rejected, add back the booking dates to available dates and change status to rejected
+            } else {
+                ListingService.updateAvailableDates(listing,
+                        listingToUpdate -> listingToUpdate.addAvailableDateRange(booking.getBookingDates()), listingRepository, listingResponseCache);
+                booking.setBookingStatus(BookingStatus.REJECTED);
+            }
 
-        //save updated booking
-        booking.setUpdatedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+            //save updated booking
+            booking.setUpdatedAt(LocalDateTime.now());
+            bookingRepository.save(booking);
 
-        return convertToDTOResponse(booking);
+            return convertToDTOResponse(booking);
+        });
     }
 
     public void deleteBooking(String id) {
-        //check if id is valid
-        Booking booking = validateBookingIdAndGetBooking(id);
+        //bookings of the same listing are created/changed one at a time,
+        //the booking is read inside the lock so that its status is not changed by another request while this one runs
+        listingLockManager.withListingLock(getListingIdOfBooking(id), () -> {
+            //check if id is valid
+            Booking booking = validateBookingIdAndGetBooking(id);
+
+            //check that current user is owner of booking or admin
+            User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+            if (!currentUser.getId().equals(booking.getUserId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+                throw new UnauthorizedException("Only the owner of the booking or admin can delete the booking");
+            }
 
-        //check that current user is owner of booking or admin
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        if (!currentUser.getId().equals(booking.getUser().getId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
-            throw new UnauthorizedException("Only the owner of the booking or admin can delete the booking");
-        }
+            //if booking does not have status denied, add back the booked dates to the listing
+            if(booking.getBookingStatus() != BookingStatus.REJECTED) {
+                Listing listing = ListingService.validateListingIdAndGetListing(booking.getListingId(), listingRepository);
+                ListingService.updateAvailableDates(listing,
+                        listingToUpdate -> listingToUpdate.addAvailableDateRange(booking.getBookingDates()), listingRepository, listingResponseCache);
+            }
 
-        //get listing
-        Listing listing = validateListingIdAndGetListing(booking);
+            //delete booking
+            bookingRepository.deleteById(id);
+        });
+    }
 
-        //if booking does not have status denied, add back the booked dates to the listing
-        if(booking.getBookingStatus() != BookingStatus.REJECTED) {
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listing.setUpdatedAt(LocalDateTime.now());
-            listingRepository.save(listing);
+    //export all bookings, the bookings are read from a database cursor and passed on to bookingConsumer in batches,
+    //so memory use does not depend on the number of bookings
+    public void exportBookings(Consumer<BookingResponse> bookingConsumer) {
+        List<Booking> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        try (Stream<Booking> bookings = bookingRepository.streamAllBy()) {
+            bookings.forEach(booking -> {
+                batch.add(booking);
+                if (batch.size() == EXPORT_BATCH_SIZE) {
+                    convertToDTOResponses(batch).forEach(bookingConsumer);
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            convertToDTOResponses(batch).forEach(bookingConsumer);
         }
-
-        //delete booking
-        bookingRepository.deleteById(id);
     }
 
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
     //get bookings for a user, used by getBookingsByUserId and getBookingsCurrentUser methods
-    private List<BookingResponse> getUserBookings(User user) {
+    private PageResponse<BookingResponse> getUserBookings(User user, Pageable pageable, String after) {
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
 
-        //convert toDTO and return
-        List<Booking> bookings = bookingRepository.findByUser(user);
-        return bookings.stream()
-                .map(this::convertToDTOResponse)
-                .collect(Collectors.toList());
+        //convert toDTO and return, all bookings belong to user so no user lookups are needed
+        Slice<Booking> bookings = bookingRepository.findByUserIdAndIdGreaterThan(user.getId(), Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(bookings, booking -> convertToDTOResponse(booking, user), Booking::getId);
     }
 
     private BookingResponse convertToDTOResponse(Booking booking) {
         //get listing and user to save variables in DTOResponse
-        User user = userRepository.findById(booking.getUser().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("User with id "+ booking.getUser().getId()+ " not found"));
+        User user = userRepository.findById(booking.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User with id "+ booking.getUserId()+ " not found"));
+
+        return convertToDTOResponse(booking, user);
+    }
 
+    //convert a list of bookings to DTOs, the users of the bookings are fetched with one query instead of one per booking
+    private List<BookingResponse> convertToDTOResponses(List<Booking> bookings) {
+        Set<String> userIds = bookings.stream()
+                .map(Booking::getUserId)
+                .collect(Collectors.toSet());
+        Map<String, User> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return bookings.stream()
+                .map(booking -> {
+                    User user = usersById.get(booking.getUserId());
+                    if (user == null) {
+                        throw new ResourceNotFoundException("User with id "+ booking.getUserId()+ " not found");
+                    }
+                    return convertToDTOResponse(booking, user);
+                })
+                .collect(Collectors.toList());
+    }
+
+    //convert to DTO when the user of the booking has already been fetched
+    private BookingResponse convertToDTOResponse(Booking booking, User user) {
         return new BookingResponse(
                 booking.getId(),
-                booking.getListing().getId(),
+                booking.getListingId(),
                 booking.getListingTitle(),
                 user.getId(),
                 user.getUsername(),
@@ -254,31 +331,25 @@ public class BookingService {
     }
 
     //convert BookingRequest to Booking
-    private Booking convertRequestToBooking(BookingRequest bookingRequest) {
-                Booking booking = new Booking();
-                Listing listing = validateListingIdAndGetListing(bookingRequest);
-                booking.setListing(listing);
-                booking.setListingTitle(listing.getTitle());
-                //set current user as the user for the booking
-                booking.setUser(UserService.verifyAuthenticationAndExtractUser(userRepository));
-                booking.setBookingDates(new DateRange(
-                        LocalDate.parse(bookingRequest.getStartDate()),
-                        LocalDate.parse(bookingRequest.getEndDate())));
-                booking.setNumberOfGuests(bookingRequest.getNumberOfGuests());
-                calculateAndSetPrice(booking);
-                return booking;
+    private Booking convertRequestToBooking(BookingRequest bookingRequest, BookingContext context) {
+        Booking booking = new Booking();
+        Listing listing = context.listing();
+        booking.setListingId(listing.getId());
+        booking.setListingTitle(listing.getTitle());
+        //set current user as the user for the booking
+        booking.setUserId(context.currentUser().getId());
+        booking.setBookingDates(new DateRange(
+                LocalDate.parse(bookingRequest.getStartDate()),
+                LocalDate.parse(bookingRequest.getEndDate())));
+        booking.setNumberOfGuests(bookingRequest.getNumberOfGuests());
+        calculateAndSetPrice(booking, listing);
+        return booking;
     }
 
     //calculate price from nr of booked days and price per night from listing
-    private void calculateAndSetPrice(Booking booking) {
+    private void calculateAndSetPrice(Booking booking, Listing listing) {
         //calculate days in between start and end date
-        long daysBetween = ChronoUnit.DAYS.between(
-                booking.getBookingDates().getStartDate(),
-                booking.getBookingDates().getEndDate()
-        );
-
-        //get listing
-        Listing listing = validateListingIdAndGetListing(booking);
+        int daysBetween = booking.getBookingDates().numberOfNights();
 
         //calculate price using listing price_per_night
         BigDecimal totalPrice = listing.getPricePerNight().multiply(BigDecimal.valueOf(daysBetween));
@@ -288,14 +359,12 @@ public class BookingService {
     }
 
     //validate that BookingRequest data is valid
-    private void validateBooking(BookingRequest bookingRequest) {
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-
-        //check that listing id is valid
-        Listing listing = validateListingIdAndGetListing(bookingRequest);
+    private void validateBooking(BookingRequest bookingRequest, BookingContext context) {
+        User currentUser = context.currentUser();
+        Listing listing = context.listing();
 
         //check that the user for the booking is not also the host of the listing
-        if (currentUser.getId().equals(listing.getHost().getId())) {
+        if (currentUser.getId().equals(listing.getHostId())) {
             throw new IllegalArgumentException("user not allowed to make booking for their own listing");
         }
 
@@ -307,43 +376,30 @@ public class BookingService {
     }
 
     //validate that booking dates are available and update listing dates
-    private void validateBookingDatesAndUpdateListing(Booking booking) {
-        //get listing
-        Listing listing = validateListingIdAndGetListing(booking);
-
-        //save booking dates in variable for ease of use
-        DateRange bookingDates = booking.getBookingDates();
-
-        //check that booking dates fall within available dates of listing.
-        boolean areBookingDatesAvailable = false;
-        for (DateRange availibleDateRange : listing.getAvailableDates()) {
-            if (bookingDates.isWithinAnotherDateRange(availibleDateRange)) {
-                areBookingDatesAvailable = true;
-
-                //update listing dates
-                if (bookingDates.isIdenticalToAnotherDateRange(availibleDateRange)) {
-                    listing.getAvailableDates().remove(availibleDateRange);
-                } else if (bookingDates.getStartDate().isEqual(availibleDateRange.getStartDate())) {
-                    availibleDateRange.setStartDate(bookingDates.getEndDate());
-                } else if (bookingDates.getEndDate().isEqual(availibleDateRange.getEndDate())) {
-                    availibleDateRange.setEndDate(bookingDates.getStartDate());
-                } else {
-                    DateRange newDateRange = new DateRange(bookingDates.getEndDate(), availibleDateRange.getEndDate());
-                    listing.getAvailableDates().add(newDateRange);
-                    availibleDateRange.setEndDate(bookingDates.getStartDate());
-                }
-
-                //save updated listing
-                listing.setUpdatedAt(LocalDateTime.now());
-                listingRepository.save(listing);
-                break;
-            }
-        }
+    private void validateBookingDatesAndUpdateListing(Booking booking, Listing listing) {
+        //reserve the dates with a conditional update, so concurrent bookings cannot get the same dates
+        ListingService.updateAvailableDates(listing,
+                listingToUpdate -> reserveBookingDates(listingToUpdate, booking.getBookingDates()), listingRepository, listingResponseCache);
+    }
 
-        //error if bookingDates are not available in listing
-        if(!areBookingDatesAvailable) {
+    //check that booking dates fall within available dates of listing and remove them from available dates
+    private void reserveBookingDates(Listing listing, DateRange bookingDates) {
+        if (!listing.isAvailable(bookingDates)) {
             throw new IllegalArgumentException("booking dates not available on listing");
         }
+        listing.removeAvailableDateRange(bookingDates);
+    }
+
+    //current user and listing of a booking request, fetched once per request
+    private record BookingContext(User currentUser, Listing listing) {
+    }
+
+    //get id of the listing a booking refers to, used to lock the listing before the booking is read and changed
+    //(only the listing id is read, the rest of the booking is read inside the lock)
+    private String getListingIdOfBooking(String bookingId) {
+        return bookingRepository.findListingIdById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("No booking with id '"+bookingId+"' in database"))
+                .getListingId();
     }
 
     //validate id and get booking object
@@ -352,11 +408,6 @@ public class BookingService {
                 .orElseThrow(() -> new ResourceNotFoundException("No booking with id '"+id+"' in database"));
     }
 
-    //validate listing id and get listing object from booking
-    private Listing validateListingIdAndGetListing(Booking booking) {
-        return ListingService.validateListingIdAndGetListing(booking.getListing().getId(), listingRepository);
-    }
-
     //validate listing id and get listing object from bookingRequest
     private Listing validateListingIdAndGetListing(BookingRequest bookingRequest) {
         return ListingService.validateListingIdAndGetListing(bookingRequest.getListingId(), listingRepository);
@@ -2,9 +2,11 @@ package com.Java24GroupProject.AirBnBPlatform.services;
 
 import com.Java24GroupProject.AirBnBPlatform.models.User;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.UserPrincipalCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -14,24 +16,41 @@ import java.util.stream.Collectors;
 
 //This class is a part of the site security implementation
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     //constructor injection
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
+    //used at login, always fetches the user from the database
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                getAuthorities(user)
-        );
+        return new AuthenticatedUser(user, getAuthorities(user));
+    }
+
+    //used by JwtAuthenticationFilter for requests with a jwt token, the user is only fetched from the database if it is not in UserPrincipalCache
+    public UserDetails loadAuthenticatedUser(String username) throws UsernameNotFoundException {
+        return userPrincipalCache.get(username, this::loadUserByUsername);
+    }
+
+    //called by Spring Security after a successful login if the stored password hash was made with other settings than the current
+    //ones (see SecurityConfiguration.passwordEncoder), newEncodedPassword is the password hashed with the current settings
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newEncodedPassword);
+        userRepository.save(user);
+        userPrincipalCache.invalidate(user.getUsername());
+
+        return new AuthenticatedUser(user, getAuthorities(user));
     }
 
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
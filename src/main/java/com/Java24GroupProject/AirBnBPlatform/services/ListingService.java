@@ -1,129 +1,231 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.HostListingResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.HostResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ConflictException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
-import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingHistogram;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingLockManager;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingSearchIndex;
+import com.Java24GroupProject.AirBnBPlatform.util.Pagination;
+import com.Java24GroupProject.AirBnBPlatform.util.RatingScore;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @Service
 public class ListingService {
+    //max number of times an update of available dates is retried when other requests update the same listing at the same time
+    private static final int MAX_AVAILABLE_DATES_UPDATE_ATTEMPTS = 10;
+    //fields that listing pages can be sorted on (besides id)
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "pricePerNight", "capacity", "averageRating", "bayesianRating");
+
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final ReviewRepository reviewRepository;
+    private final HostRatingRepository hostRatingRepository;
+    private final ListingLockManager listingLockManager;
+    private final ListingSearchIndex listingSearchIndex;
+    private final ListingResponseCache listingResponseCache;
+    private final RatingScore ratingScore;
 
-    public ListingService(ListingRepository listingRepository, UserRepository userRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository) {
+    public ListingService(ListingRepository listingRepository, UserRepository userRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository, HostRatingRepository hostRatingRepository, ListingLockManager listingLockManager, ListingSearchIndex listingSearchIndex, ListingResponseCache listingResponseCache, RatingScore ratingScore) {
         this.listingRepository = listingRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.reviewRepository = reviewRepository;
+        this.hostRatingRepository = hostRatingRepository;
+        this.listingLockManager = listingLockManager;
+        this.listingSearchIndex = listingSearchIndex;
+        this.listingResponseCache = listingResponseCache;
+        this.ratingScore = ratingScore;
     }
 
     //METHODS used by LISTING CONTROLLER CLASS -----------------------------------------------------------------------
 
-    //get all listings
-    public List<ListingResponse> getAllListings() {
-
-        List<Listing> listings = listingRepository.findAll();
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+    //get all listings, one page at a time
+    public PageResponse<ListingResponse> getAllListings(Pageable pageable, String after) {
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Listing> listings = listingRepository.findByIdGreaterThan(Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
     //get listing by id
-    public ListingResponse getListingById(String id) {
-        Listing listing = validateListingIdAndGetListing(id, listingRepository);
+    //the listing is returned as JSON from ListingResponseCache, only fetched from the database if it is not in the cache
+    public ListingResponseCache.CachedListing getListingById(String id) {
+        return listingResponseCache.get(id, listingId -> {
+            Listing listing = validateListingIdAndGetListing(listingId, listingRepository);
 
-        return convertToListingResponseDTO(listing);
+            return convertToListingResponseDTO(listing);
+        });
     }
 
     //get all listings for a host, using hosts id
-    public List<ListingResponse> getListingsByHostId(String hostId) {
+    public PageResponse<ListingResponse> getListingsByHostId(String hostId, Pageable pageable, String after) {
         //check if user is valid
         User user = UserService.validateUserIdAndReturnUser(hostId, userRepository);
-        return getListingsByUser(user);
+        return getListingsByUser(user, pageable, after);
     }
     
     // get listings by price interval
-    public List<ListingResponse> getListingByPriceRange(double minPrice, double maxPrice) {
-        // make sure none of the prices are negative
-        if (minPrice < 0 || maxPrice <= 0) {
-            throw new IllegalArgumentException("Price cannot be negative");
-        }
-
-        // make sure minPrice is not greater that maxPrice
-        if (minPrice > maxPrice ) {
-            throw new IllegalArgumentException("Price cannot be greater than maxPrice");
-        }
+    public PageResponse<ListingResponse> getListingByPriceRange(double minPrice, double maxPrice, Pageable pageable, String after) {
+        validatePriceRange(minPrice, maxPrice);
 
         //convert to DTO and return
-        List<Listing> listings = listingRepository.findByPricePerNightBetween(minPrice, maxPrice);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Listing> listings = listingRepository.findByPricePerNightBetweenAndIdGreaterThan(minPrice, maxPrice, Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
     //get listings by location
-    public List<ListingResponse> getListingByLocation(String location) {
+    public PageResponse<ListingResponse> getListingByLocation(String location, Pageable pageable, String after) {
         // make sure location isn't empty/null
         if(location == null || location.isEmpty()) {
             throw new IllegalArgumentException("Location cannot be empty or null");
         }
 
+        //use the in-memory search index if possible
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        PageResponse<ListingResponse> indexedListings = getListingsFromSearchIndex(null, true, location, pageRequest, after);
+        if (indexedListings != null) {
+            return indexedListings;
+        }
+
         //convert to DTO and return
-        List<Listing> listings = listingRepository.findByLocation(location);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        Slice<Listing> listings = listingRepository.findByLocationAndIdGreaterThan(location, Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
     //get listings by capacity interval
-    public List<ListingResponse> getListingByCapacity(double minCapacity, double maxCapacity) {
-        //checks so capacity isn't negative
-        if (minCapacity < 0 || maxCapacity <= 0) {
-            throw new IllegalArgumentException("Capacity cannot be negative");
-        }
-        //checks if min isn't greater or equal to max capacity
-        if (minCapacity > maxCapacity) {
-            throw new IllegalArgumentException("minCapacity cannot be greater than maxCapacity");
-        }
+    public PageResponse<ListingResponse> getListingByCapacity(double minCapacity, double maxCapacity, Pageable pageable, String after) {
+        validateCapacityRange(minCapacity, maxCapacity);
 
         //convert to DTO and return
-        List<Listing> listings = listingRepository.findByCapacityBetween(minCapacity, maxCapacity);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Listing> listings = listingRepository.findByCapacityBetweenAndIdGreaterThan(minCapacity, maxCapacity, Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
-    //get listing by utilities
-    public List<ListingResponse> getListingByUtilities(String utility) {
+    //get listing by utilities, utilities is one or more utilities separated by comma (e.g. "WIFI,POOL")
+    //match decides if the listings must have all or any of the utilities
+    public PageResponse<ListingResponse> getListingByUtilities(String utilities, String match, Pageable pageable, String after) {
         //make sure utility isn't empty
-        if(utility == null || utility.isEmpty()) {
+        if(utilities == null || utilities.isEmpty()) {
             throw new IllegalArgumentException("Utility cannot be empty or null");
         }
+        Set<ListingUtilities> utilitySet = convertToUtilities(utilities);
+        boolean matchAll = switch (match.toLowerCase()) {
+            case "all" -> true;
+            case "any" -> false;
+            default -> throw new IllegalArgumentException("match must be 'all' or 'any'");
+        };
+
+        //use the in-memory search index if possible
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        PageResponse<ListingResponse> indexedListings = getListingsFromSearchIndex(utilitySet, matchAll, null, pageRequest, after);
+        if (indexedListings != null) {
+            return indexedListings;
+        }
+
+        //convert to DTO and return
+        Slice<Listing> listings;
+        if (matchAll) {
+            ListingSearchRequest searchRequest = new ListingSearchRequest();
+            searchRequest.setUtilities(utilitySet);
+            listings = listingRepository.search(searchRequest, Pagination.cursor(after), pageRequest);
+        } else {
+            listings = listingRepository.findByUtilitiesInAndIdGreaterThan(utilitySet, Pagination.cursor(after), pageRequest);
+        }
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
+    }
+
+    //get listings that are available for the whole period from startDate to endDate, optionally in a location and for a number of guests
+    //the check is done by the database (see ListingRepositoryCustomImpl.search), using the availableDates indexes on Listing
+    public PageResponse<ListingResponse> getAvailableListings(LocalDate startDate, LocalDate endDate, String location, Integer guests, Pageable pageable, String after) {
+        ListingSearchRequest searchRequest = new ListingSearchRequest();
+        searchRequest.setStartDate(startDate);
+        searchRequest.setEndDate(endDate);
+        searchRequest.setLocation(location);
+        searchRequest.setMinCapacity(guests);
+        return searchListings(searchRequest, pageable, after);
+    }
+
+    //search listings on any combination of price, capacity, location, utilities, rating and available dates (single query)
+    public PageResponse<ListingResponse> searchListings(ListingSearchRequest searchRequest, Pageable pageable, String after) {
+        //make sure none of the limits are negative, and that min is not greater than max
+        if ((searchRequest.getMinPrice() != null && searchRequest.getMinPrice().signum() < 0)
+                || (searchRequest.getMaxPrice() != null && searchRequest.getMaxPrice().signum() < 0)
+                || (searchRequest.getMinCapacity() != null && searchRequest.getMinCapacity() < 0)
+                || (searchRequest.getMaxCapacity() != null && searchRequest.getMaxCapacity() < 0)
+                || (searchRequest.getMinRating() != null && searchRequest.getMinRating() < 0)) {
+            throw new IllegalArgumentException("search limits cannot be negative");
+        }
+        if (searchRequest.getMinPrice() != null && searchRequest.getMaxPrice() != null
+                && searchRequest.getMinPrice().compareTo(searchRequest.getMaxPrice()) > 0) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+        if (searchRequest.getMinCapacity() != null && searchRequest.getMaxCapacity() != null
+                && searchRequest.getMinCapacity() > searchRequest.getMaxCapacity()) {
+            throw new IllegalArgumentException("minCapacity cannot be greater than maxCapacity");
+        }
+
+        // make sure location isn't empty
+        if (searchRequest.getLocation() != null && searchRequest.getLocation().isBlank()) {
+            throw new IllegalArgumentException("Location cannot be empty");
+        }
+
+        //available dates are searched as a period, so both or none of the dates must be set
+        if ((searchRequest.getStartDate() == null) != (searchRequest.getEndDate() == null)) {
+            throw new IllegalArgumentException("both startDate and endDate are needed to search on available dates");
+        }
+        if (searchRequest.getStartDate() != null && !searchRequest.getEndDate().isAfter(searchRequest.getStartDate())) {
+            throw new IllegalArgumentException("endDate must be after startDate");
+        }
 
         //convert to DTO and return
-        List<Listing> listings = listingRepository.findByUtilities(utility);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Listing> listings = listingRepository.search(searchRequest, Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(listings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
     //create new listing with current user as host
@@ -133,94 +235,221 @@ public class ListingService {
         Listing listing = convertRequestToListing(listingRequest);
 
         //save new listing
+        listing.setRatingSum(0D);
+        listing.setRatingCount(0);
+        listing.setRatingHistogram(new RatingHistogram());
         listing.setAverageRating(0D);
+        listing.setBayesianRating(ratingScore.bayesianRating(0, 0));
         listingRepository.save(listing);
+        listingSearchIndex.put(listing);
 
         //return as ResponseDTO
         return convertToListingResponseDTO(listing);
     }
 
     //get all listings for the current user
-    public List<ListingResponse> getListingsCurrentUser() {
+    public PageResponse<ListingResponse> getListingsCurrentUser(Pageable pageable, String after) {
         //get current user
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getListingsByUser(currentUser);
+        return getListingsByUser(currentUser, pageable, after);
     }
 
     //update a listing, only the host of the listing can update a listing
     public ListingResponse updateListing(String id, ListingRequest listingRequest) {
-        //validate listing id and get existing listing
-        Listing existingListing = validateListingIdAndGetListing(id, listingRepository);
-
-        //validate that the user is host of the listing
-        String currentUserId = UserService.verifyAuthenticationAndExtractUser(userRepository).getId();
-        if (!currentUserId.equals(existingListing.getHost().getId())) {
-            throw new UnauthorizedException("Listing cannot be updated by current user.\n Only the listing can host update a listing.");
-        }
-
-        existingListing.setTitle(listingRequest.getTitle());
-        existingListing.setDescription(listingRequest.getDescription());
-        existingListing.setPricePerNight(listingRequest.getPricePerNight());
-        existingListing.setCapacity(listingRequest.getCapacity());
-        existingListing.setUtilities(listingRequest.getUtilities());
-        existingListing.setLocation(listingRequest.getLocation());
-        existingListing.setImageUrls(listingRequest.getImageUrls());
-        existingListing.setAvailableDates(listingRequest.getAvailableDates());
-
-        //save updated listing
-        existingListing.setUpdatedAt(LocalDateTime.now());
-        listingRepository.save(existingListing);
-
-        //return as ResponseDTO
-        return convertToListingResponseDTO(existingListing);
+        //available dates are changed by bookings as well, so the listing is updated while holding the listing lock (like bookings)
+        return listingLockManager.withListingLock(id, () -> {
+            //validate listing id and get existing listing
+            Listing existingListing = validateListingIdAndGetListing(id, listingRepository);
+
+            //validate that the user is host of the listing
+            String currentUserId = UserService.verifyAuthenticationAndExtractUser(userRepository).getId();
+            if (!currentUserId.equals(existingListing.getHostId())) {
+                throw new UnauthorizedException("Listing cannot be updated by current user.\n Only the listing can host update a listing.");
+            }
+
+            //dates of pending or accepted bookings cannot be made available again
+            validateAvailableDatesNotBooked(id, listingRequest.getAvailableDates());
+
+            //the available dates are replaced with a compare-and-set (see updateAvailableDates), so dates reserved by a booking
+            //in another app instance after the listing was read are not overwritten
+            Listing updatedListing = updateAvailableDates(existingListing,
+                    listing -> listing.setAvailableDates(listingRequest.getAvailableDates()), listingRepository, listingResponseCache);
+
+            updatedListing.setTitle(listingRequest.getTitle());
+            updatedListing.setDescription(listingRequest.getDescription());
+            updatedListing.setPricePerNight(listingRequest.getPricePerNight());
+            updatedListing.setCapacity(listingRequest.getCapacity());
+            updatedListing.setUtilities(listingRequest.getUtilities());
+            updatedListing.setLocation(listingRequest.getLocation());
+            updatedListing.setImageUrls(listingRequest.getImageUrls());
+
+            //save updated listing
+            //only the changed fields are saved, a full save could overwrite ratings from reviews created in the meantime
+            updatedListing.setUpdatedAt(LocalDateTime.now());
+            listingRepository.updateListingDetails(updatedListing);
+            listingSearchIndex.put(updatedListing);
+            listingResponseCache.invalidate(updatedListing.getId());
+
+            //return as ResponseDTO
+            return convertToListingResponseDTO(updatedListing);
+        });
     }
 
     //validate listing id exists in database and delete the listing (incl. listing bookings and reviews)
     public void deleteListing(String id) {
-        Listing listing = validateListingIdAndGetListing(id, listingRepository);
-
-        //validate that the user is host of the listing or admin
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        if (!currentUser.getId().equals(listing.getHost().getId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
-            throw new UnauthorizedException("Listing cannot be deleted by current user.\n Only the listing host or an admin user can delete a listing.");
-        }
-
-        bookingRepository.deleteByListing(listing);
-        reviewRepository.deleteByListing(listing);
-        listingRepository.delete(listing);
+        //reviews of the listing are created and deleted while holding the listing lock (see ReviewService), so none are added
+        //or removed while the listing is being deleted
+        listingLockManager.withListingLock(id, () -> {
+            Listing listing = validateListingIdAndGetListing(id, listingRepository);
+
+            //validate that the user is host of the listing or admin
+            User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+            if (!currentUser.getId().equals(listing.getHostId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+                throw new UnauthorizedException("Listing cannot be deleted by current user.\n Only the listing host or an admin user can delete a listing.");
+            }
+
+            bookingRepository.deleteByListingId(listing.getId());
+            listingRepository.delete(listing);
+            //the deleted reviews no longer count for the host, the ratings subtracted are those of the reviews actually deleted
+            //(not the sum stored on the listing, which a review deleted in the meantime may already have been subtracted from)
+            List<Review> deletedReviews = reviewRepository.removeByListingIdReturningRatings(listing.getId());
+            if (!deletedReviews.isEmpty()) {
+                double ratingSum = deletedReviews.stream().mapToDouble(Review::getRating).sum();
+                hostRatingRepository.changeRatings(listing.getHostId(), -ratingSum, -deletedReviews.size());
+            }
+            listingSearchIndex.remove(listing.getId());
+            listingResponseCache.invalidate(listing.getId());
+        });
     }
 
     public HostResponse getHostProfile(String userId) {
         User host = UserService.validateUserIdAndReturnUser(userId, userRepository);
-        List<IdAndName> hostListingsForHostResponse = new ArrayList<>();
-        for (Listing listing : listingRepository.findByHost(host)) {
-            hostListingsForHostResponse.add(new IdAndName(listing.getId(), listing.getTitle()));
+        //the ratings are kept up to date when reviews are created and deleted, so no reviews are read here
+        List<HostListingResponse> hostListingsForHostResponse = new ArrayList<>();
+        for (Listing listing : listingRepository.findRatingsByHostId(host.getId())) {
+            hostListingsForHostResponse.add(new HostListingResponse(listing.getId(),
+                    listing.getTitle(),
+                    listing.getRatingCount() == null ? 0 : listing.getRatingCount(),
+                    listing.getAverageRating() == null ? 0.0 : listing.getAverageRating()));
         }
+        HostRating hostRating = hostRatingRepository.findById(host.getId()).orElse(null);
         return new HostResponse(host.getId(),
                 host.getUsername(),
                 host.getProfilePictureURL(),
                 host.getDescription(),
+                hostRating == null ? 0 : hostRating.getReviewCount(),
+                hostRating == null ? 0.0 : hostRating.getAverageRating(),
                 hostListingsForHostResponse);
     }
 
+    //export all listings, the listings are read from a database cursor and passed on to listingConsumer one at a time,
+    //so memory use does not depend on the number of listings
+    public void exportListings(Consumer<ListingResponse> listingConsumer) {
+        try (Stream<Listing> listings = listingRepository.streamAllBy()) {
+            listings.map(ListingService::convertToListingResponseDTO)
+                    .forEach(listingConsumer);
+        }
+    }
+
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
+    /*get a page of listings matching location/utilities using ListingSearchIndex, the matching ids are found in memory
+    and only the listings on the page are fetched from the database. Returns null if the index cannot be used: before it
+    has been built or when it is stale (see ListingSearchIndex.isReady), when sorting on other fields than id, or for a cursor
+    that is not in the index*/
+    private PageResponse<ListingResponse> getListingsFromSearchIndex(Set<ListingUtilities> utilities, boolean matchAllUtilities, String location, Pageable pageRequest, String after) {
+        if (!listingSearchIndex.isReady() || !pageRequest.getSort().equals(Sort.by("id"))) {
+            return null;
+        }
+        ListingSearchIndex.IdPage idPage = listingSearchIndex.findPage(utilities, matchAllUtilities, location, after,
+                pageRequest.getPageNumber(), pageRequest.getPageSize());
+        if (idPage == null) {
+            return null;
+        }
+
+        //findAllById does not keep the order of the ids
+        Map<String, Listing> listingsById = new HashMap<>();
+        for (Listing listing : listingRepository.findAllById(idPage.ids())) {
+            listingsById.put(listing.getId(), listing);
+        }
+        List<Listing> listings = new ArrayList<>();
+        for (String id : idPage.ids()) {
+            if (listingsById.containsKey(id)) {
+                listings.add(listingsById.get(id));
+            }
+        }
+        return Pagination.toPageResponse(new SliceImpl<>(listings, pageRequest, idPage.hasNext()), ListingService::convertToListingResponseDTO, Listing::getId);
+    }
+
+    //convert comma separated utilities (not case sensitive) to set of ListingUtilities
+    private static Set<ListingUtilities> convertToUtilities(String utilities) {
+        Set<ListingUtilities> utilitySet = EnumSet.noneOf(ListingUtilities.class);
+        for (String utility : utilities.split(",")) {
+            try {
+                utilitySet.add(ListingUtilities.valueOf(utility.trim().toUpperCase()));
+            } catch (java.lang.IllegalArgumentException e) {
+                throw new IllegalArgumentException("'" + utility.trim() + "' is not a utility, possible utilities are: " + Arrays.toString(ListingUtilities.values()));
+            }
+        }
+        return utilitySet;
+    }
+
+    //used by getListingByPriceRange
+    private static void validatePriceRange(double minPrice, double maxPrice) {
+        // make sure none of the prices are negative
+        if (minPrice < 0 || maxPrice <= 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+
+        // make sure minPrice is not greater that maxPrice
+        if (minPrice > maxPrice ) {
+            throw new IllegalArgumentException("Price cannot be greater than maxPrice");
+        }
+    }
+
+    //used by getListingByCapacity
+    private static void validateCapacityRange(double minCapacity, double maxCapacity) {
+        //checks so capacity isn't negative
+        if (minCapacity < 0 || maxCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        //checks if min isn't greater or equal to max capacity
+        if (minCapacity > maxCapacity) {
+            throw new IllegalArgumentException("minCapacity cannot be greater than maxCapacity");
+        }
+    }
+
+    //check that none of the available dates are booked (bookings that are pending or accepted), used when the host updates a listing
+    private void validateAvailableDatesNotBooked(String listingId, List<DateRange> availableDates) {
+        if (availableDates == null || availableDates.isEmpty()) {
+            return;
+        }
+        List<Booking> activeBookings = bookingRepository.findByListingIdAndBookingStatusIn(listingId,
+                EnumSet.of(BookingStatus.PENDING, BookingStatus.ACCEPTED));
+        for (Booking booking : activeBookings) {
+            for (DateRange availableDateRange : availableDates) {
+                if (availableDateRange.hasOverlapWithAnotherDateRange(booking.getBookingDates())) {
+                    throw new IllegalArgumentException("available dates overlap with booked dates "
+                            + booking.getBookingDates().getStartDate() + " - " + booking.getBookingDates().getEndDate());
+                }
+            }
+        }
+    }
+
     //used by get listings for a single user, used by getListingsByUserId and getListingsCurrentUser methods in this class
-    private List<ListingResponse> getListingsByUser(User user) {
-        List<Listing> userListings = listingRepository.findByHost(user);
-        return userListings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+    private PageResponse<ListingResponse> getListingsByUser(User user, Pageable pageable, String after) {
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Listing> userListings = listingRepository.findByHostIdAndIdGreaterThan(user.getId(), Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(userListings, ListingService::convertToListingResponseDTO, Listing::getId);
     }
 
     // limit what's shown when grabbing listings
-    private ListingResponse convertToListingResponseDTO(Listing listing) {
-        
+    private static ListingResponse convertToListingResponseDTO(Listing listing) {
         return new ListingResponse(
                 listing.getId(),
                 listing.getTitle(),
-                listing.getHost().getId(),
+                listing.getHostId(),
                 listing.getHostName(),
                 listing.getDescription(),
                 listing.getPricePerNight(),
@@ -230,6 +459,9 @@ public class ListingService {
                 listing.getLocation(),
                 listing.getImageUrls(),
                 listing.getAverageRating(),
+                listing.getRatingCount() == null ? 0 : listing.getRatingCount(),
+                listing.getRatingHistogram(),
+                listing.getBayesianRating() == null ? 0.0 : listing.getBayesianRating(),
                 listing.getCreatedAt(),
                 listing.getUpdatedAt()
         );
@@ -242,7 +474,7 @@ public class ListingService {
 
         // Set the host the current user
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        listing.setHost(currentUser);
+        listing.setHostId(currentUser.getId());
         listing.setHostName(currentUser.getUsername());
         
         // Set fields from ListingRequest into Listing
@@ -264,4 +496,44 @@ public class ListingService {
 
     }
 
+    //same as above, for when the listing itself is not needed (does not read the listing document)
+    static void validateListingIdExists(String id, ListingRepository listingRepository) {
+        if (!ObjectId.isValid(id) || !listingRepository.existsById(id)) {
+            throw new ResourceNotFoundException("No listing with id '"+ id +"' in database");
+        }
+    }
+
+    /*update the available dates of a listing (used when booking dates are reserved or given back).
+    The listing is read, availableDatesUpdate is applied to it and only the available dates are written back, on condition that
+    they have not been changed by another request in the meantime. If they have, the update is retried on a fresh copy of the
+    listing, so two concurrent bookings can never both get the same dates. Errors thrown by availableDatesUpdate (e.g. dates not
+    available) are passed on and nothing is saved.*/
+    static Listing updateAvailableDates(String listingId, Consumer<Listing> availableDatesUpdate, ListingRepository listingRepository, ListingResponseCache listingResponseCache) {
+        return updateAvailableDates(validateListingIdAndGetListing(listingId, listingRepository), availableDatesUpdate, listingRepository, listingResponseCache);
+    }
+
+    //same as above, for when the listing has already been fetched in the current request (only fetched again if the first attempt fails)
+    static Listing updateAvailableDates(Listing listing, Consumer<Listing> availableDatesUpdate, ListingRepository listingRepository, ListingResponseCache listingResponseCache) {
+        String listingId = listing.getId();
+        for (int attempt = 1; attempt <= MAX_AVAILABLE_DATES_UPDATE_ATTEMPTS; attempt++) {
+            if (attempt > 1) {
+                listing = validateListingIdAndGetListing(listingId, listingRepository);
+            }
+            List<DateRange> currentAvailableDates = listing.getAvailableDates() == null ? null : new ArrayList<>(listing.getAvailableDates());
+
+            availableDatesUpdate.accept(listing);
+            listing.setUpdatedAt(LocalDateTime.now());
+
+            if (listingRepository.updateAvailableDatesIfUnchanged(listingId, currentAvailableDates, listing.getAvailableDates(), listing.getUpdatedAt())) {
+                //cached listing has the old available dates
+                listingResponseCache.invalidate(listingId);
+                return listing;
+            }
+
+            //another request updated the listing first, wait a short random time so the retries do not collide again
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(attempt * 1_000_000L));
+        }
+        throw new ConflictException("Available dates of listing with id '" + listingId + "' are being updated by other requests, please try again");
+    }
+
 }
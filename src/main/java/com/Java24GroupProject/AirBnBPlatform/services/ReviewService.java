@@ -1,5 +1,6 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
@@ -11,28 +12,43 @@ import com.Java24GroupProject.AirBnBPlatform.models.Review;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingLockManager;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.Pagination;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class ReviewService {
+    //fields that review pages can be sorted on (besides id)
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "rating");
+
     private final ReviewRepository reviewRepository;
     private final BookingRepository bookingRepository;
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
+    private final HostRatingRepository hostRatingRepository;
+    private final ListingResponseCache listingResponseCache;
+    private final ListingLockManager listingLockManager;
 
-    public ReviewService(ReviewRepository reviewRepository, BookingRepository bookingRepository, ListingRepository listingRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, BookingRepository bookingRepository, ListingRepository listingRepository, UserRepository userRepository, HostRatingRepository hostRatingRepository, ListingResponseCache listingResponseCache, ListingLockManager listingLockManager) {
         this.reviewRepository = reviewRepository;
         this.bookingRepository = bookingRepository;
         this.listingRepository = listingRepository;
         this.userRepository = userRepository;
+        this.hostRatingRepository = hostRatingRepository;
+        this.listingResponseCache = listingResponseCache;
+        this.listingLockManager = listingLockManager;
     }
 
     //METHODS used by REVIEW CONTROLLER CLASS -----------------------------------------------------------------------
@@ -42,58 +58,102 @@ public class ReviewService {
         // Get the logged in users username from the JWT token
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
 
-        // Validate the listing id
-        Listing listing = ListingService.validateListingIdAndGetListing(reviewRequest.getListingId(), listingRepository);
-
-        // Check if the booking exists and the end date has passed
-        Booking booking = bookingRepository.findByUserAndListing(currentUser, listing)
-                .orElseThrow(() -> new IllegalArgumentException("Cannot leave a review without having a booking for the listing. \nNo booking found for current user and listing with id '"+listing.getId()+"'."));
+        //reviews are created while holding the listing lock, so a listing being deleted cannot get a new review
+        return listingLockManager.withListingLock(reviewRequest.getListingId(), () -> {
+            // Validate the listing id
+            Listing listing = ListingService.validateListingIdAndGetListing(reviewRequest.getListingId(), listingRepository);
+
+            // Check if the booking exists and the end date has passed
+            Booking booking = bookingRepository.findByUserIdAndListingId(currentUser.getId(), listing.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Cannot leave a review without having a booking for the listing. \nNo booking found for current user and listing with id '"+listing.getId()+"'."));
+
+            if (booking.getBookingDates().getEndDate().isAfter(LocalDate.now())) {
+                throw new IllegalArgumentException("Cannot leave a review before the stay has ended.");
+            }
+
+            // Create the review
+            Review review = new Review();
+            review.setListingId(listing.getId());
+            review.setUserId(currentUser.getId());
+            review.setUsername(currentUser.getUsername());
+            review.setRating(reviewRequest.getRating());
+            review.setEndDate(booking.getBookingDates().getEndDate());
+
+            // Save the review
+            Review savedReview = reviewRepository.save(review);
+
+            // add rating to listing ratings (sum, count, histogram, average and bayesian rating) and to host ratings
+            listingRepository.addRating(listing.getId(), savedReview.getRating());
+            hostRatingRepository.changeRatings(listing.getHostId(), savedReview.getRating(), 1);
+            listingResponseCache.invalidate(listing.getId());
+            return mapToReviewResponse(savedReview);
+        });
+    }
 
-        if (booking.getBookingDates().getEndDate().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Cannot leave a review before the stay has ended.");
+    //get all reviews for a listing
+    public PageResponse<ReviewResponse> getReviewsByListing(String listingId, Pageable pageable, String after) {
+        // Fetch a page of reviews for the listing
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<Review> reviews = reviewRepository.findByListingIdAndIdGreaterThan(listingId, Pagination.cursor(after), pageRequest);
+
+        //check that listing id is valid, only needed if there are no reviews (the reviews belong to an existing listing)
+        if (!reviews.hasContent() && after == null && pageRequest.getPageNumber() == 0) {
+            ListingService.validateListingIdExists(listingId, listingRepository);
         }
 
-        // Create the review
-        Review review = new Review();
-        review.setListing(listing);
-        review.setUser(currentUser);
-        review.setUsername(currentUser.getUsername());
-        review.setRating(reviewRequest.getRating());
-        review.setEndDate(booking.getBookingDates().getEndDate());
-
-        // Save the review
-        Review savedReview = reviewRepository.save(review);
-
-        // listing avg ratings
-        updateAverageListingRating(reviewRequest.getListingId());
-        return mapToReviewResponse(savedReview);
+        // Map the reviews to ReviewResponse DTOs
+        return Pagination.toPageResponse(reviews, ReviewService::mapToReviewResponse, Review::getId);
     }
 
-    //get all reviews for a listing
-    public List<ReviewResponse> getReviewsByListing(String listingId) {
-        //check that listing id is valid
-        ListingService.validateListingIdAndGetListing(listingId, listingRepository);
-
-        // Fetch all reviews for the listing
-        List<Review> reviews = reviewRepository.findByListing_Id(listingId);
+    //get reviews for a listing newest first, with keyset pagination (cursor is the nextCursor of the previous page) and
+    //optionally only reviews with rating >= minRating
+    public PageResponse<ReviewResponse> getReviewFeedByListing(String listingId, String cursor, int size, Double minRating) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        if (!ObjectId.isValid(listingId)) {
+            throw new ResourceNotFoundException("No listing with id '" + listingId + "' in database");
+        }
+        int pageSize = Math.min(size, Pagination.MAX_PAGE_SIZE);
+        Pagination.FeedCursor feedCursor = Pagination.FeedCursor.parse(cursor);
+
+        // Fetch one review more than the page size, to know if there is a next page
+        List<Review> reviews = reviewRepository.findFeedPage(listingId,
+                feedCursor == null ? null : feedCursor.createdAt(),
+                feedCursor == null ? null : feedCursor.id(),
+                minRating, pageSize + 1);
+
+        //check that listing id is valid, only needed if there are no reviews
+        if (reviews.isEmpty() && cursor == null) {
+            ListingService.validateListingIdExists(listingId, listingRepository);
+        }
 
-        // Map the reviews to ReviewResponse DTOs
-        return reviews.stream()
-                .map(this::mapToReviewResponse)
-                .collect(Collectors.toList());
+        boolean hasNext = reviews.size() > pageSize;
+        if (hasNext) {
+            reviews = reviews.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Review lastReview = reviews.get(pageSize - 1);
+            nextCursor = new Pagination.FeedCursor(lastReview.getCreatedAt(), lastReview.getId()).toCursor();
+        }
+        List<ReviewResponse> content = reviews.stream()
+                .map(ReviewService::mapToReviewResponse)
+                .toList();
+        return new PageResponse<>(content, 0, pageSize, hasNext, nextCursor);
     }
 
     //get reviews made by the current logged in user
-    public List<ReviewResponse> getReviewsCurrentUser() {
+    public PageResponse<ReviewResponse> getReviewsCurrentUser(Pageable pageable, String after) {
         User user = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getUserReviews(user);
+        return getUserReviews(user, pageable, after);
     }
 
     //get reviews by user id
-    public List<ReviewResponse> getReviewsByUserId(String userId) {
+    public PageResponse<ReviewResponse> getReviewsByUserId(String userId, Pageable pageable, String after) {
         User user = UserService.validateUserIdAndReturnUser(userId, userRepository);
 
-        return getUserReviews(user);
+        return getUserReviews(user, pageable, after);
     }
 
     //delete review
@@ -104,114 +164,56 @@ public class ReviewService {
 
         //check that current user is the owner of the review or admin
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        if (!currentUser.getId().equals(review.getUser().getId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+        if (!currentUser.getId().equals(review.getUserId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
             throw new UnauthorizedException("Review cannot be deleted by current user.\n Only the user who created the review or an admin user can delete a review.");
         }
 
-        // Delete the review
-        reviewRepository.delete(review);
+        //while holding the listing lock, like createReview and ListingService.deleteListing
+        listingLockManager.withListingLock(review.getListingId(), () -> {
+            // Delete the review, the ratings are only changed by the request that deleted it, so a review deleted by concurrent
+            // or retried requests (or with its listing) is only subtracted once
+            if (reviewRepository.removeById(reviewId) == 0) {
+                throw new ResourceNotFoundException("No review with id '" + reviewId + "' in database.");
+            }
+
+            // remove rating from listing and host ratings (only the host id of the listing is read)
+            listingRepository.removeRating(review.getListingId(), review.getRating());
+            listingRepository.findHostIdById(review.getListingId())
+                    .ifPresent(listing -> hostRatingRepository.changeRatings(listing.getHostId(), -review.getRating(), -1));
+            listingResponseCache.invalidate(review.getListingId());
+        });
+    }
 
-        // Update the average rating for the listing
-        updateAverageListingRating(review.getListing().getId());
+    //recompute the ratings of all listings from their reviews, and then the host ratings from the listings, returns the number
+    //of listings updated
+    public int recomputeListingRatings() {
+        int listingCount = listingRepository.recomputeRatings();
+        listingResponseCache.invalidateAll();
+        hostRatingRepository.recomputeRatings();
+        return listingCount;
     }
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
     //get reviews posted by a user, used by getReviewsByUserId and getReviewsCurrentUser methods in this class
-    private List<ReviewResponse> getUserReviews(User user) {
-            // Fetch all reviews for the user
-            List<Review> reviews = reviewRepository.findByUser_Id(user.getId());
+    private PageResponse<ReviewResponse> getUserReviews(User user, Pageable pageable, String after) {
+            // Fetch a page of reviews for the user
+            Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+            Slice<Review> reviews = reviewRepository.findByUserIdAndIdGreaterThan(user.getId(), Pagination.cursor(after), pageRequest);
 
             // Map the reviews to ReviewResponse DTOs
-            return reviews.stream()
-                    .map(this::mapToReviewResponse)
-                    .collect(Collectors.toList());
+            return Pagination.toPageResponse(reviews, ReviewService::mapToReviewResponse, Review::getId);
              //same as getReviewsByListing
     }
 
-    // Update the average rating of a listing
-    private void updateAverageListingRating(String listingId) {
-        List<Review> reviews = reviewRepository.findByListing_Id(listingId);
-
-        double averageRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
-        listing.setAverageRating(averageRating);
-        listing.setUpdatedAt(LocalDateTime.now());
-
-        // Use updateListing method to update the existing listing
-        listingRepository.save(listing);
-    }
-
     // method to map Review to ReviewResponse
-    private ReviewResponse mapToReviewResponse(Review review) {
-        /*if the user has been deleted, the user will have been set to null for that users reviews
-        and review.getUser().getId() will cause an error. Check if this is the case and set userId
-        to null in the new ReviewResponse object if there is not user in the review entity.*/
-        String userId = review.getUser() == null ? null : review.getUser().getId();
-
+    //(if the user has been deleted, userId is null for that users reviews)
+    private static ReviewResponse mapToReviewResponse(Review review) {
         return new ReviewResponse(review.getId(),
-                review.getListing().getId(),
-                userId,
+                review.getListingId(),
+                review.getUserId(),
                 review.getUsername(),
                 review.getRating(),
                 review.getCreatedAt());
     }
-
- /*
-    public double getAverageRatingForHost(String hostId) {
-        User host = userService.getUserById(hostId);
-        return host.getAverageRating();
-    }
-     public List<ReviewResponse> getReviewsByHost(String hostId) {
-        System.out.println("Fetching reviews for host: " + hostId);
-
-        // Fetch all reviews for listings owned by the host
-        List<Review> reviews = reviewRepository.findByListing_Host_Id(hostId);
-
-        System.out.println("Number of reviews found: " + reviews.size());
-
-        // Map the reviews to ReviewResponse DTOs
-        return reviews.stream()
-                .map(this::mapToReviewResponse)
-                .collect(Collectors.toList());
-    }
-      // Update the average rating of a host
-    public void updateAverageHostRating(String hostId) {
-        System.out.println("Fetching reviews for host: " + hostId);
-
-        // Fetch all reviews for listings owned by the host
-        List<Review> reviews = reviewRepository.findByListing_Host_Id(hostId);
-
-        System.out.println("Number of reviews found: " + reviews.size());
-
-        // Log the reviews
-        for (Review review : reviews) {
-            System.out.println("Review ID: " + review.getId() + ", Rating: " + review.getRating());
-        }
-
-        // Calculate the average rating
-        double averageRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        System.out.println("Calculated average rating: " + averageRating);
-
-        // Fetch the host
-        User host = userService.getUserByIdReview(hostId);
-        if (host == null) {
-            throw new ResourceNotFoundException("Host not found with ID: " + hostId);
-        }
-
-        // Update the host's average rating
-        host.setAverageRating(averageRating);
-        userService.updateCurrentUser(host); // Save the updated host
-
-        System.out.println("Updated average rating for host " + hostId + ": " + averageRating);
-    }
-  */
 }
@@ -1,5 +1,6 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.RegisterResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.UserRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.UserResponse;
@@ -8,15 +9,22 @@ import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundExceptio
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
 import com.Java24GroupProject.AirBnBPlatform.models.Booking;
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
-import com.Java24GroupProject.AirBnBPlatform.models.Review;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UserAddress;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingLockManager;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingResponseCache;
+import com.Java24GroupProject.AirBnBPlatform.util.ListingSearchIndex;
+import com.Java24GroupProject.AirBnBPlatform.util.Pagination;
+import com.Java24GroupProject.AirBnBPlatform.util.UserPrincipalCache;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -27,29 +35,45 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    //fields that user pages can be sorted on (besides id)
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "username");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ListingRepository listingRepository;
     private final BookingRepository bookingRepository;
     private final ReviewRepository reviewRepository;
+    private final HostRatingRepository hostRatingRepository;
+    private final ListingLockManager listingLockManager;
+    private final ListingSearchIndex listingSearchIndex;
+    private final ListingResponseCache listingResponseCache;
+    private final UserPrincipalCache userPrincipalCache;
 
     //constructor injection
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ListingRepository listingRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ListingRepository listingRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository, HostRatingRepository hostRatingRepository, ListingLockManager listingLockManager, ListingSearchIndex listingSearchIndex, ListingResponseCache listingResponseCache, UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.listingRepository = listingRepository;
         this.bookingRepository = bookingRepository;
         this.reviewRepository = reviewRepository;
+        this.hostRatingRepository = hostRatingRepository;
+        this.listingLockManager = listingLockManager;
+        this.listingSearchIndex = listingSearchIndex;
+        this.listingResponseCache = listingResponseCache;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     //METHODS used by USER CONTROLLER CLASS -----------------------------------------------------------------------
 
     //register a new user, used by AuthenticationController
     public RegisterResponse registerUser(UserRequest userRequest) {
+        if (userRequest.getPassword() == null) {
+            throw new com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException("password is a required field");
+        }
+
         //validate that username, email and phoneNr is unique
         //check if username already exists, and if is does, cast error
         if (userRepository.findByUsername(userRequest.getUsername()).isPresent()) {
@@ -69,7 +93,7 @@ public class UserService {
         //maps the RegisterRequest to a new User entity
         User user = transferUserRequestToUser(userRequest, new User());
         //empty listing-favorites array list for a new user
-        user.setFavorites(new ArrayList<>());
+        user.setFavoriteListingIds(new ArrayList<>());
 
         //save new user
         userRepository.save(user);
@@ -77,12 +101,11 @@ public class UserService {
         return new RegisterResponse("user registered successfully", user.getUsername(), user.getRoles());
     }
 
-    //get all users, return as UserResponseDTO
-    public List<UserResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(this::transferUserToUserResponse)
-                .collect(Collectors.toList());
+    //get all users, one page at a time, return as UserResponseDTO
+    public PageResponse<UserResponse> getAllUsers(Pageable pageable, String after) {
+        Pageable pageRequest = Pagination.toPageRequest(pageable, after, SORTABLE_FIELDS);
+        Slice<User> users = userRepository.findByIdGreaterThan(Pagination.cursor(after), pageRequest);
+        return Pagination.toPageResponse(users, this::transferUserToUserResponse, User::getId);
     }
 
     //get current user
@@ -111,8 +134,9 @@ public class UserService {
 
     //update current user data
     public UserResponse updateCurrentUser(UserRequest userRequest) {
-        //get current user
-        User currentUser = verifyAuthenticationAndExtractUser(userRepository);
+        //get current user (a copy that can be changed)
+        User currentUser = verifyAuthenticationAndReloadUser(userRepository);
+        String oldUsername = currentUser.getUsername();
 
         //if username is changed, check that username is not taken
         if (!currentUser.getUsername().equals(userRequest.getUsername())) {
@@ -141,6 +165,15 @@ public class UserService {
         //set updated at to current time
         currentUser.setUpdatedAt(LocalDateTime.now());
         userRepository.save(currentUser);
+        //the username is also stored on the users listings (as hostName) and reviews, so they can be shown without reading the user
+        if (!oldUsername.equals(currentUser.getUsername())) {
+            listingRepository.updateHostName(currentUser.getId(), currentUser.getUsername());
+            reviewRepository.updateUsername(currentUser.getId(), currentUser.getUsername());
+            listingResponseCache.invalidateAll();
+        }
+        //logged-in user has changed (username, password, roles...)
+        userPrincipalCache.invalidate(oldUsername);
+        userPrincipalCache.invalidate(currentUser.getUsername());
 
         //convert to a responseDTO and return
         return transferUserToUserResponse(currentUser);
@@ -150,59 +183,45 @@ public class UserService {
     public String addOrRemoveFavorite(String listingId) {
         Listing newListing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
         String message = "'"+ newListing.getTitle()+"'";
-        //get current user
-        User user = verifyAuthenticationAndExtractUser(userRepository);
-
-        boolean isRemoved = false;
-        //loop through favorites to check if newListing is already saved
-        for (Listing listingReference : user.getFavorites()) {
-            if (listingRepository.findById(listingReference.getId()).isPresent()) {
-                Listing listingInFavorites = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
-                //if listing is already in favorites, remove from favorites
-                if (listingInFavorites.getId().equals(newListing.getId())) {
-                    user.removeFavorite(listingReference);
-                    message = message + " has been removed from favorites";
-                    isRemoved = true;
-                    break;
-                }
-                //if listing has been deleted, remove from favorites
-            } else {
-                user.removeFavorite(listingReference);
+        //get current user (a copy that can be changed)
+        User user = verifyAuthenticationAndReloadUser(userRepository);
 
-            }
+        if (user.getFavoriteListingIds() == null) {
+            user.setFavoriteListingIds(new ArrayList<>());
         }
 
-        if (!isRemoved) {
+        //if listing is already in favorites, remove from favorites
+        if (user.getFavoriteListingIds().contains(newListing.getId())) {
+            user.removeFavorite(newListing.getId());
+            message = message + " has been removed from favorites";
+        } else {
+            //remove listings that have been deleted from favorites, so they do not count towards the max
+            removeDeletedFavorites(user, findFavoriteTitles(user));
+
             //check that does not already have max amount of saved favorites (max allowed = 20)
-            if (user.getFavorites().size() >= 20) {
+            if (user.getFavoriteListingIds().size() >= 20) {
                 throw new com.Java24GroupProject.AirBnBPlatform.exceptions.UnsupportedOperationException("New favorite cannot be added, max 20 favorites allowed");
             }
-            user.addFavorite(newListing);
+            user.addFavorite(newListing.getId());
             message = message +" has been added to favorites";
         }
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getUsername());
         return message;
     }
 
     //get favorites for current user
     public Map<String, String> getFavorites() {
-        //get current user
-        User user = verifyAuthenticationAndExtractUser(userRepository);
-
-        //convert list of listings to list of string objects
-        Map<String, String> favoritesResponse = new HashMap<>();
-        if (!user.getFavorites().isEmpty()) {
-            for (Listing listingReference : user.getFavorites()) {
-                if (listingRepository.findById(listingReference.getId()).isPresent()) {
-                    Listing listing = listingRepository.findById(listingReference.getId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Listing not found"));
-                    favoritesResponse.put(listing.getId(), listing.getTitle());
-                } else {
-                    //if listing has been removed from database, delete if from favorites
-                    user.removeFavorite(listingReference);
-                    userRepository.save(user);
-                }
-            }
+        //get current user (a copy that can be changed)
+        User user = verifyAuthenticationAndReloadUser(userRepository);
+
+        //titles of the favorite listings, read with one query
+        Map<String, String> favoritesResponse = findFavoriteTitles(user);
+
+        //if listings have been removed from database, delete them from favorites
+        if (removeDeletedFavorites(user, favoritesResponse)) {
+            userRepository.save(user);
+            userPrincipalCache.invalidate(user.getUsername());
         }
         return favoritesResponse;
     }
@@ -215,48 +234,66 @@ public class UserService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    //get id and title of the existing favorite listings of a user
+    private Map<String, String> findFavoriteTitles(User user) {
+        Map<String, String> favoriteTitles = new HashMap<>();
+        if (user.getFavoriteListingIds() != null && !user.getFavoriteListingIds().isEmpty()) {
+            for (Listing listing : listingRepository.findTitlesByIdIn(user.getFavoriteListingIds())) {
+                favoriteTitles.put(listing.getId(), listing.getTitle());
+            }
+        }
+        return favoriteTitles;
+    }
+
+    //remove favorites that are not in existingFavorites (listings that have been deleted), returns true if any were removed
+    private boolean removeDeletedFavorites(User user, Map<String, String> existingFavorites) {
+        return user.getFavoriteListingIds() != null
+                && user.getFavoriteListingIds().removeIf(listingId -> !existingFavorites.containsKey(listingId));
+    }
+
     //used by class methods deleteUserById and deleteCurrentUser
     private void deleteUser(User user) {
         //get and delete user listings
-        List<Listing> userListings= listingRepository.deleteByHost(user);
+        List<Listing> userListings= listingRepository.deleteByHostId(user.getId());
 
         //delete bookings and reviews for the deleted listings
         for (Listing listing : userListings) {
-            bookingRepository.deleteByListing(listing);
-            reviewRepository.deleteByListing(listing);
+            listingSearchIndex.remove(listing.getId());
+            listingResponseCache.invalidate(listing.getId());
+            bookingRepository.deleteByListingId(listing.getId());
+            reviewRepository.deleteByListingId(listing.getId());
         }
+        hostRatingRepository.deleteById(user.getId());
 
         //get and delete bookings belonging to the user
-        List<Booking> userBookings = bookingRepository.deleteByUser(user);
+        List<Booking> userBookings = bookingRepository.deleteByUserId(user.getId());
 
         //loop bookings and add back dates to listing if booking is pending
         for (Booking booking : userBookings) {
             if (booking.getBookingStatus() == BookingStatus.PENDING) {
 
-                Listing listing = ListingService.validateListingIdAndGetListing(booking.getListing().getId(), listingRepository);
-                listing.addAvailableDateRange(booking.getBookingDates());
-                listing.setUpdatedAt(LocalDateTime.now());
-                listingRepository.save(listing);
+                String listingId = booking.getListingId();
+                listingLockManager.withListingLock(listingId, () -> {
+                    ListingService.updateAvailableDates(listingId,
+                            listing -> listing.addAvailableDateRange(booking.getBookingDates()), listingRepository, listingResponseCache);
+                });
             }
         }
 
-        //delete user from reviews (reviews are not deleted, but user is set to null)
-        List<Review> userReviews = reviewRepository.findByUser(user);
-        if (!userReviews.isEmpty()) {
-            for (Review userReview : userReviews) {
-                userReview.setUser(null);
-                userReview.setUsername("[deleted user]");
-            }
-        }
+        //delete user from reviews (reviews are not deleted, but user is set to null), with one update
+        reviewRepository.removeUser(user.getId(), "[deleted user]");
         userRepository.delete(user);
+        userPrincipalCache.invalidate(user.getUsername());
     }
 
     //convert incoming DTO (from UserController) to User object
     private User transferUserRequestToUser(UserRequest userRequest, User user) {
 
         user.setUsername(userRequest.getUsername());
-        //encodes the password
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        //encodes the password, only if a new password is given (hashing is slow on purpose, so it is not done when not needed)
+        if (userRequest.getPassword() != null) {
+            user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        }
         user.setEmail(userRequest.getEmail());
         user.setPhoneNr(userRequest.getPhoneNr());
         //create UserAddress from String variables from the UserRequest
@@ -295,16 +332,29 @@ public class UserService {
     }
 
     //verify and get current user from jwtToken/cookies
+    //the returned user may be shared with other requests (see AuthenticatedUser) and must not be changed, use
+    //verifyAuthenticationAndReloadUser to get a user that is changed and saved
     static User verifyAuthenticationAndExtractUser(UserRepository userRepository) {
         //check that user is logged in
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
             throw new UnauthorizedException("User is not logged in.");
         }
+        //the user has already been fetched by JwtAuthenticationFilter
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getUser();
+        }
         //get user id from token via userDetails
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         return userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new IllegalArgumentException("User not found."));
     }
 
+    //get a fresh copy of the logged-in user from the database, for methods that change the user
+    static User verifyAuthenticationAndReloadUser(UserRepository userRepository) {
+        String userId = verifyAuthenticationAndExtractUser(userRepository).getId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found."));
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ServiceUnavailableException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*PasswordEncoder that runs the hashing of another PasswordEncoder (e.g. BCrypt) on a small pool of its own threads.
+Password hashing is slow on purpose (BCrypt(12) takes about 250ms of CPU), so a burst of logins/registrations could use
+all CPU and request threads and make every other endpoint slow. With the pool at most "threads" passwords are hashed at
+the same time, at most "queueCapacity" more wait, and any further requests are rejected at once with
+ServiceUnavailableException (503) instead of waiting.*/
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder passwordEncoder, int threads, int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    //cheap, does not hash anything
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    //stop the pool threads, called by Spring on shutdown
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //run hashing in the pool and wait for the result
+    private <T> T run(Callable<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(hashing);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many login requests at the moment, please try again shortly");
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check was interrupted");
+        } catch (ExecutionException e) {
+            //pass on errors from the PasswordEncoder (e.g. IllegalArgumentException for a null password)
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/*help method for caches whose values are loaded from the database (ListingResponseCache, UserPrincipalCache).
+Cache.get(key, loader) runs the loader while holding a lock inside the cache (a synchronized block), on Java 21 a virtual
+thread blocked on the database inside a synchronized block also blocks the platform thread it runs on (pinning).
+Here the cache only stores an empty future for the key while holding the lock, and the request that added the future loads
+the value afterwards, outside the lock. Other requests for the same key wait for that future, so a value is still only
+loaded once at a time, and a value that is invalidated while being loaded is not put back into the cache.*/
+public final class CacheLoading {
+
+    private CacheLoading() {
+    }
+
+    //get cached value, or load it with loader (errors from loader are passed on and nothing is cached)
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> newValue = new CompletableFuture<>();
+        CompletableFuture<V> value = cache.get(key, (cacheKey, executor) -> newValue);
+
+        //no value in cache, this request loads it
+        if (value == newValue) {
+            try {
+                newValue.complete(loader.apply(key));
+            } catch (Throwable e) {
+                //the failed future is removed from the cache, and requests waiting for it get the same error (also for an
+                //Error, e.g. OutOfMemoryError, otherwise they would wait forever)
+                newValue.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            //pass on the error from loader
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
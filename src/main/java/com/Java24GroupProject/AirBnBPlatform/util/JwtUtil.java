@@ -2,6 +2,7 @@ package com.Java24GroupProject.AirBnBPlatform.util;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -19,19 +20,26 @@ import java.util.Date;
 public class JwtUtil {
     //both "${jwt.secret}" and "${jwt.expirationMs}" are references to values in the application.yml files (which should always be in git ignore, not pushed to GitHub)
 
-    //secret authentication token
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
     //how long a token is valid
     //can be set to very long during testing/development, but should be shorter when actually going live
-    @Value("${jwt.expirationMs}")
-    private int jwtExpirationMs;
+    private final int jwtExpirationMs;
+
+    //key for signing and verifying tokens, created once from the secret authentication token
+    private final Key signinKey;
+
+    //parser for verifying tokens, the parser is immutable and can be used by several requests at the same time
+    private final JwtParser jwtParser;
 
-    //method for creating an encrypted key for sign in
-    private Key getSigninKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    //tokens that have already been verified (if turned on)
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JwtUtil(@Value("${jwt.secret}") String jwtSecret, @Value("${jwt.expirationMs}") int jwtExpirationMs, VerifiedTokenCache verifiedTokenCache) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.signinKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signinKey)
+                .build();
     }
 
     //generate a jwt token for a user
@@ -44,39 +52,38 @@ public class JwtUtil {
                 //expiration (i.e., now + the expiration time length
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
                 //get key
-                .signWith(getSigninKey(), SignatureAlgorithm.HS256)
+                .signWith(signinKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    //validate a token
-    public boolean validateToken(String token, UserDetails userDetails) {
-        try {
-            String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (JwtException | IllegalArgumentException exception) {
-            return false;
-        }
-    }
-
-    //extract username from token
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+    //validate the contents of a token (already verified by extractAllClaims), no parsing or signature check is done here
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername())
+                && !isTokenExpired(claims);
     }
 
     //check if token is expired
-    private boolean isTokenExpired(String token) {
+    private boolean isTokenExpired(Claims claims) {
         //extract the expiration time
-        Date expiration = extractAllClaims(token).getExpiration();
-        //check if expiration is before current time
-        return expiration.before(new Date());
+        Date expiration = claims.getExpiration();
+        //check if expiration is before current time (tokens without expiration are not accepted)
+        return expiration == null || expiration.before(new Date());
     }
 
-    //extract contents of a token
+    //verify the signature of a token and extract its contents, throws JwtException if the token is not valid
+    //should only be called once per token, the returned claims are then used for the username and validateToken
+    //the returned claims may come from VerifiedTokenCache and must not be changed
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigninKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifiedTokenCache.get(token, this::verifyToken);
+    }
+
+    private Claims verifyToken(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (IllegalArgumentException exception) {
+            //empty token
+            throw new JwtException("JWT is empty", exception);
+        }
     }
 }
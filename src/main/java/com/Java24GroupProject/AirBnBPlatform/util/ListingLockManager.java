@@ -0,0 +1,98 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.LockStripeStatsResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//This class makes sure that requests changing the bookings/available dates of the same listing run one at a time (in this app instance)
+//Every listing id gets its own lock while it is in use, so requests for different listings never wait for each other.
+//Lock statistics are collected per stripe (listing ids are spread over a fixed number of stripes by their hash code)
+@Component
+public class ListingLockManager {
+    private static final int NUMBER_OF_STRIPES = 64;
+
+    private final ConcurrentHashMap<String, ListingLock> listingLocks = new ConcurrentHashMap<>();
+    private final StripeStats[] stripeStats = new StripeStats[NUMBER_OF_STRIPES];
+
+    public ListingLockManager() {
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            stripeStats[i] = new StripeStats();
+        }
+    }
+
+    //run action while holding the lock of the listing, returns the result of action
+    public <T> T withListingLock(String listingId, Supplier<T> action) {
+        //register as a user of the listing lock, creating it if no other request is using it
+        ListingLock listingLock = listingLocks.compute(listingId, (id, existingLock) -> {
+            ListingLock lock = existingLock == null ? new ListingLock() : existingLock;
+            lock.users++;
+            return lock;
+        });
+
+        StripeStats stats = stripeStats[Math.floorMod(listingId.hashCode(), NUMBER_OF_STRIPES)];
+        long waitTime = 0;
+        //only requests that find the lock taken are counted as waiting
+        if (!listingLock.lock.tryLock()) {
+            stats.waiting.incrementAndGet();
+            long waitStart = System.nanoTime();
+            listingLock.lock.lock();
+            waitTime = System.nanoTime() - waitStart;
+            stats.waiting.decrementAndGet();
+        }
+        stats.acquisitions.increment();
+        stats.totalWaitNanos.add(waitTime);
+        stats.maxWaitNanos.accumulateAndGet(waitTime, Math::max);
+
+        try {
+            return action.get();
+        } finally {
+            listingLock.lock.unlock();
+            //remove the lock when no other request is using it, so the map only holds locks of listings currently being changed
+            listingLocks.computeIfPresent(listingId, (id, lock) -> --lock.users == 0 ? null : lock);
+        }
+    }
+
+    public void withListingLock(String listingId, Runnable action) {
+        withListingLock(listingId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    //lock statistics for all stripes, used by AdminController
+    public List<LockStripeStatsResponse> getStripeStats() {
+        List<LockStripeStatsResponse> response = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            StripeStats stats = stripeStats[i];
+            response.add(new LockStripeStatsResponse(i,
+                    stats.acquisitions.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.totalWaitNanos.sum()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.maxWaitNanos.get()),
+                    stats.waiting.get()));
+        }
+        return response;
+    }
+
+    //number of users is only changed inside ConcurrentHashMap.compute/computeIfPresent, which run one at a time per key
+    private static class ListingLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    private static class StripeStats {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        //requests currently waiting for a lock in this stripe (queue length)
+        private final AtomicInteger waiting = new AtomicInteger();
+    }
+}
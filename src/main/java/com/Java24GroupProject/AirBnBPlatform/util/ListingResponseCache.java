@@ -0,0 +1,98 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.CacheStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/*Cache of listings for GET /listings/{id}, stored as serialized JSON (UTF-8 encoded ListingResponse) and keyed on listing id.
+Each entry also has an ETag (hash of the JSON), so clients that already have the current version of a listing get
+304 Not Modified, without the listing being fetched from the database or serialized.
+The cache is bounded on the total size of the cached JSON, and entries expire after a fixed time.
+Entries are also removed by ListingService, BookingService, UserService and ReviewService when a listing is changed in this
+app instance, the expiry time limits how long changes made by other app instances can be missed.*/
+@Component
+public class ListingResponseCache {
+    private final AsyncCache<String, CachedListing> cache;
+    private final ObjectMapper objectMapper;
+
+    public ListingResponseCache(ObjectMapper objectMapper,
+                                @Value("${listings.cache.max-size-bytes:67108864}") long maxSizeBytes,
+                                @Value("${listings.cache.time-to-live:PT10M}") Duration timeToLive) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String listingId, CachedListing listing) -> listing.json().length + listing.etag().length())
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync();
+    }
+
+    //a listing as JSON, and the ETag of that version of the listing
+    public record CachedListing(byte[] json, String etag) {
+    }
+
+    //get cached listing, or create it with listingLoader (errors from listingLoader are passed on and nothing is cached)
+    public CachedListing get(String listingId, Function<String, ListingResponse> listingLoader) {
+        //the listing is loaded outside the cache lock (see CacheLoading)
+        return CacheLoading.get(cache, listingId, id -> toCachedListing(listingLoader.apply(id)));
+    }
+
+    //remove listing from cache, must be called when the listing is changed or deleted
+    public void invalidate(String listingId) {
+        cache.synchronous().invalidate(listingId);
+    }
+
+    //remove all listings from cache, used after changes to many listings
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.synchronous().stats();
+        long sizeBytes = cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CacheStatsResponse(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                cache.synchronous().estimatedSize(),
+                sizeBytes);
+    }
+
+    private CachedListing toCachedListing(ListingResponse listingResponse) {
+        byte[] json;
+        try {
+            //Jackson writes UTF-8
+            json = objectMapper.writeValueAsBytes(listingResponse);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("listing could not be converted to JSON", e);
+        }
+        return new CachedListing(json, etag(json));
+    }
+
+    //strong ETag, the same JSON always gives the same ETag (also in other app instances)
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            //every Java runtime has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*In-memory index of listing utilities and location, used for the browse endpoints (/listings/utilities, /listings/location)
+so they do not need a database query to find the matching listings.
+Every listing gets an ordinal (0, 1, 2...), in id order when the index is built and then in order of creation.
+There is a bitmap per utility and per location with the ordinals of the matching listings set, so queries on several
+utilities are bitmap intersections (AND) or unions (OR).
+The index is built at startup and kept up to date by ListingService/UserService when listings are created, updated and
+deleted in this app instance. Changes made by other instances are only picked up when the index is rebuilt, every
+listings.search-index.refresh-interval (and on demand, see AdminController), so with several instances the browse
+endpoints can be up to one refresh interval behind. If the index has not been rebuilt for listings.search-index.max-staleness
+(e.g. the rebuilds fail), it is not used and the listings are queried from the database instead (see isReady).*/
+@Component
+public class ListingSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ListingSearchIndex.class);
+    private final ListingRepository listingRepository;
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    //only one rebuild at a time (a lock instead of synchronized, so a virtual thread reading from the database does not pin its carrier thread)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private IndexData indexData = new IndexData();
+    //changes made while the index is being rebuilt, applied to the new index before it is swapped in (null if not rebuilding)
+    private List<Consumer<IndexData>> changesDuringRebuild = null;
+    //when the listings of the current index were read from the database, null until the index has been built
+    private volatile Instant builtAt = null;
+
+    @Autowired
+    public ListingSearchIndex(ListingRepository listingRepository,
+                              @Value("${listings.search-index.max-staleness:PT5M}") Duration maxStaleness) {
+        this(listingRepository, maxStaleness, Clock.systemUTC());
+    }
+
+    ListingSearchIndex(ListingRepository listingRepository, Duration maxStaleness, Clock clock) {
+        this.listingRepository = listingRepository;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+    }
+
+    //ids of one page of listings matching the query, and if there are more matching listings after the page
+    public record IdPage(List<String> ids, boolean hasNext) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildIndex();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    //periodic rebuild, picks up the listing changes made by other app instances
+    @Scheduled(initialDelayString = "${listings.search-index.refresh-interval:PT1M}",
+            fixedDelayString = "${listings.search-index.refresh-interval:PT1M}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            //the old index is kept, and no longer used once it is older than maxStaleness
+            logger.warn("Listing search index refresh failed, index built at {} is kept", builtAt, e);
+        }
+    }
+
+    private void rebuildIndex() {
+        Instant rebuildStartedAt = clock.instant();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        //read only the indexed fields, sorted on id
+        IndexData newIndexData = new IndexData();
+        try (Stream<Listing> listings = listingRepository.streamSearchIndexFieldsBy()) {
+            listings.forEach(newIndexData::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        //swap in the new index when it is complete
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(change -> change.accept(newIndexData));
+            changesDuringRebuild = null;
+            indexData = newIndexData;
+            builtAt = rebuildStartedAt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //true if the index has been built and was last rebuilt less than maxStaleness ago
+    public boolean isReady() {
+        Instant lastBuiltAt = builtAt;
+        return lastBuiltAt != null && clock.instant().isBefore(lastBuiltAt.plus(maxStaleness));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexData.listings.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //add a new listing or update the indexed fields of an existing listing
+    public void put(Listing listing) {
+        change(data -> data.put(listing));
+    }
+
+    public void remove(String listingId) {
+        change(data -> data.remove(listingId));
+    }
+
+    private void change(Consumer<IndexData> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(indexData);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*find the ids of a page of listings that are in location (if not null) and have all (matchAllUtilities) or any of the
+    utilities (if not empty). The page starts after the listing with id after (keyset pagination) or, if after is null,
+    after page * size matching listings. Returns null if after is not in the index (e.g. a listing created in another app
+    instance), then the database has to be queried instead*/
+    public IdPage findPage(Set<ListingUtilities> utilities, boolean matchAllUtilities, String location, String after, int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = indexData.match(utilities, matchAllUtilities, location);
+
+            int start = 0;
+            long skip = (long) page * size;
+            if (after != null) {
+                Integer afterOrdinal = indexData.ordinalsById.get(after);
+                if (afterOrdinal == null) {
+                    return null;
+                }
+                start = afterOrdinal + 1;
+                skip = 0;
+            }
+
+            List<String> ids = new ArrayList<>(size);
+            for (int ordinal = matches.nextSetBit(start); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else if (ids.size() == size) {
+                    return new IdPage(ids, true);
+                } else {
+                    ids.add(indexData.idsByOrdinal.get(ordinal));
+                }
+            }
+            return new IdPage(ids, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //the index itself, only accessed while holding the lock
+    private static class IndexData {
+        private final Map<String, Integer> ordinalsById = new HashMap<>();
+        private final List<String> idsByOrdinal = new ArrayList<>();
+        private final List<String> locationsByOrdinal = new ArrayList<>();
+        //ordinals of listings in the index, deleted listings keep their ordinal (so cursors stay valid) until the index is rebuilt
+        private final BitSet listings = new BitSet();
+        private final EnumMap<ListingUtilities, BitSet> listingsByUtility = new EnumMap<>(ListingUtilities.class);
+        private final Map<String, BitSet> listingsByLocation = new HashMap<>();
+
+        private IndexData() {
+            for (ListingUtilities utility : ListingUtilities.values()) {
+                listingsByUtility.put(utility, new BitSet());
+            }
+        }
+
+        private void put(Listing listing) {
+            Integer ordinal = ordinalsById.get(listing.getId());
+            if (ordinal == null) {
+                ordinal = idsByOrdinal.size();
+                ordinalsById.put(listing.getId(), ordinal);
+                idsByOrdinal.add(listing.getId());
+                locationsByOrdinal.add(null);
+            } else {
+                clear(ordinal);
+            }
+
+            listings.set(ordinal);
+            if (listing.getUtilities() != null) {
+                for (ListingUtilities utility : listing.getUtilities()) {
+                    listingsByUtility.get(utility).set(ordinal);
+                }
+            }
+            if (listing.getLocation() != null) {
+                locationsByOrdinal.set(ordinal, listing.getLocation());
+                listingsByLocation.computeIfAbsent(listing.getLocation(), location -> new BitSet()).set(ordinal);
+            }
+        }
+
+        private void remove(String listingId) {
+            Integer ordinal = ordinalsById.get(listingId);
+            if (ordinal != null) {
+                clear(ordinal);
+            }
+        }
+
+        //remove listing with ordinal from all bitmaps
+        private void clear(int ordinal) {
+            listings.clear(ordinal);
+            for (BitSet utilityListings : listingsByUtility.values()) {
+                utilityListings.clear(ordinal);
+            }
+            String location = locationsByOrdinal.get(ordinal);
+            if (location != null) {
+                BitSet locationListings = listingsByLocation.get(location);
+                locationListings.clear(ordinal);
+                if (locationListings.isEmpty()) {
+                    listingsByLocation.remove(location);
+                }
+                locationsByOrdinal.set(ordinal, null);
+            }
+        }
+
+        /*bitmap of listings matching the query. Only the bitmaps that are needed are read, and the utility and location bitmaps
+        only have listings that are in the index, so they are not intersected with all listings. If the query has a single bitmap
+        as result (no utilities, or a single utility and no location) that bitmap of the index is returned without copying it,
+        the result must only be read, while holding the read lock*/
+        private BitSet match(Set<ListingUtilities> utilities, boolean matchAllUtilities, String location) {
+            BitSet locationListings = null;
+            if (location != null) {
+                locationListings = listingsByLocation.get(location);
+                if (locationListings == null) {
+                    return new BitSet();
+                }
+            }
+
+            if (utilities == null || utilities.isEmpty()) {
+                return locationListings == null ? listings : locationListings;
+            }
+
+            List<BitSet> bitmaps = new ArrayList<>();
+            if (matchAllUtilities) {
+                for (ListingUtilities utility : utilities) {
+                    bitmaps.add(listingsByUtility.get(utility));
+                }
+            } else if (utilities.size() == 1) {
+                bitmaps.add(listingsByUtility.get(utilities.iterator().next()));
+            } else {
+                BitSet anyUtility = new BitSet();
+                for (ListingUtilities utility : utilities) {
+                    anyUtility.or(listingsByUtility.get(utility));
+                }
+                bitmaps.add(anyUtility);
+            }
+            if (locationListings != null) {
+                bitmaps.add(locationListings);
+            }
+            if (bitmaps.size() == 1) {
+                return bitmaps.get(0);
+            }
+
+            //intersect, starting from the smallest bitmap (lowest highest set bit), so the copy and the intersections only cover
+            //as many words as needed
+            bitmaps.sort(Comparator.comparingInt(BitSet::length));
+            BitSet matches = (BitSet) bitmaps.get(0).clone();
+            for (int i = 1; i < bitmaps.size() && !matches.isEmpty(); i++) {
+                matches.and(bitmaps.get(i));
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+//writes objects as newline delimited JSON (one JSON document per line), used by the export endpoints
+//each object is written straight to the output stream, so memory use does not depend on how many objects are written,
+//and a slow client makes the writes block (the output stream is only flushed when its buffer is full)
+public class NdjsonWriter {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectWriter objectWriter;
+    private final OutputStream outputStream;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.outputStream = outputStream;
+    }
+
+    public void write(Object value) {
+        try {
+            objectWriter.writeValue(outputStream, value);
+            outputStream.write('\n');
+        } catch (IOException e) {
+            //e.g. the client closed the connection, stops the export
+            throw new UncheckedIOException(e);
+        }
+    }
+}
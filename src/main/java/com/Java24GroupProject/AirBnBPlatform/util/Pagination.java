@@ -0,0 +1,112 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*help methods for the paginated list endpoints.
+Two kinds of pagination are supported:
+- page/size/sort (offset pagination), e.g. ?page=2&size=20&sort=pricePerNight,desc
+- after/size (keyset pagination), e.g. ?after=<nextCursor of previous page>&size=20, only sorted on id, but does not get slower
+  for deep pages, as MongoDB can start directly at the cursor in the _id index instead of skipping all earlier documents
+All page queries filter on _id > cursor, for the first page the cursor is the smallest possible ObjectId (FIRST_CURSOR).
+Newest-first feeds (e.g. the review feed of a listing) use keyset pagination on (createdAt, id) descending instead, with a
+FeedCursor as cursor.*/
+public final class Pagination {
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final String FIRST_CURSOR = "000000000000000000000000";
+
+    private Pagination() {
+    }
+
+    //validate page request from client: page size is capped at MAX_PAGE_SIZE, only sortableFields can be sorted on, and id is always
+    //added as the last sort key so the order is stable (and pages do not overlap) when sorted values are equal
+    public static Pageable toPageRequest(Pageable pageable, String after, Set<String> sortableFields) {
+        Sort sort = Sort.unsorted();
+        for (Sort.Order order : pageable.getSort()) {
+            if (order.getProperty().equals("id")) {
+                if (order.isDescending()) {
+                    throw new IllegalArgumentException("sorting on id is only possible in ascending order");
+                }
+            } else if (sortableFields.contains(order.getProperty())) {
+                sort = sort.and(Sort.by(order));
+            } else {
+                throw new IllegalArgumentException("cannot sort on '" + order.getProperty() + "', possible sort fields are: id, "
+                        + String.join(", ", sortableFields));
+            }
+        }
+
+        int page = pageable.getPageNumber();
+        if (after != null) {
+            if (sort.isSorted()) {
+                throw new IllegalArgumentException("after can only be used when sorting on id");
+            }
+            if (!ObjectId.isValid(after)) {
+                throw new IllegalArgumentException("after must be the nextCursor of a previous page");
+            }
+            //the cursor decides where the page starts
+            page = 0;
+        }
+
+        return PageRequest.of(page, Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), sort.and(Sort.by("id")));
+    }
+
+    //position in a newest-first feed: the createdAt and id of the last item of the previous page, sent to clients as
+    //"<createdAt>_<id>" (e.g. 2025-02-01T12:30:05.123_67a1...)
+    public record FeedCursor(LocalDateTime createdAt, String id) {
+        //parse cursor from client, null if cursor is null (first page)
+        public static FeedCursor parse(String cursor) {
+            if (cursor == null) {
+                return null;
+            }
+            int separator = cursor.lastIndexOf('_');
+            try {
+                String id = cursor.substring(separator + 1);
+                if (separator < 0 || !ObjectId.isValid(id)) {
+                    throw new IllegalArgumentException("cursor must be the nextCursor of a previous page");
+                }
+                return new FeedCursor(LocalDateTime.parse(cursor.substring(0, separator)), id);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("cursor must be the nextCursor of a previous page");
+            }
+        }
+
+        public String toCursor() {
+            return createdAt + "_" + id;
+        }
+    }
+
+    //cursor to use in page queries (_id > cursor)
+    public static String cursor(String after) {
+        return after == null ? FIRST_CURSOR : after;
+    }
+
+    //convert slice of entities to PageResponse
+    public static <E, R> PageResponse<R> toPageResponse(Slice<E> slice, Function<E, R> convert, Function<E, String> getId) {
+        List<R> content = slice.getContent().stream()
+                .map(convert)
+                .collect(Collectors.toList());
+        return toPageResponse(slice, content, getId);
+    }
+
+    //convert slice to PageResponse, for when the content has already been converted
+    public static <E, R> PageResponse<R> toPageResponse(Slice<E> slice, List<R> content, Function<E, String> getId) {
+        //a cursor is only valid if the page is sorted on id alone
+        String nextCursor = null;
+        if (slice.hasNext() && slice.getSort().equals(Sort.by("id"))) {
+            nextCursor = getId.apply(slice.getContent().get(slice.getNumberOfElements() - 1));
+        }
+        return new PageResponse<>(content, slice.getNumber(), slice.getSize(), slice.hasNext(), nextCursor);
+    }
+}
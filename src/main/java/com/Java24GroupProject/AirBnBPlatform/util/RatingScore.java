@@ -0,0 +1,38 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*Bayesian rating of listings, used to sort listings by quality (sort=bayesianRating,desc).
+The average rating alone ranks a listing with a single 5 star review above one with 2000 reviews averaging 4.8. The bayesian
+rating adds priorWeight "virtual" reviews with rating priorMean to the real reviews:
+  bayesianRating = (priorWeight * priorMean + ratingSum) / (priorWeight + ratingCount)
+so listings with few reviews stay close to priorMean, and the more reviews a listing has the closer it gets to its average.
+The value is stored on the listing and updated together with ratingSum/ratingCount, so sorting on it uses an index.
+If the settings are changed the stored values must be recomputed (POST /admin/maintenance/listing-ratings/recompute).*/
+@Component
+public class RatingScore {
+    private final double priorMean;
+    private final double priorWeight;
+
+    public RatingScore(@Value("${listings.rating.prior-mean:3.0}") double priorMean,
+                       @Value("${listings.rating.prior-weight:10}") double priorWeight) {
+        if (priorWeight <= 0) {
+            throw new IllegalStateException("listings.rating.prior-weight must be greater than zero");
+        }
+        this.priorMean = priorMean;
+        this.priorWeight = priorWeight;
+    }
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    public double bayesianRating(double ratingSum, int ratingCount) {
+        return (priorWeight * priorMean + ratingSum) / (priorWeight + ratingCount);
+    }
+}
@@ -0,0 +1,38 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/*Cache of logged-in users (security principals) keyed on username, used by JwtAuthenticationFilter so the user does not
+have to be fetched from the database on every request with a jwt token.
+Entries expire after a short time, and are removed by UserService when a user is changed (e.g. new username, password or
+roles) or deleted in this app instance. The expiry time limits how long changes made by other app instances can be missed.*/
+@Component
+public class UserPrincipalCache {
+    private final AsyncCache<String, UserDetails> cache;
+
+    public UserPrincipalCache(@Value("${users.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${users.principal-cache.time-to-live:PT1M}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .buildAsync();
+    }
+
+    //get cached user, or load it with userLoader (errors from userLoader are passed on and nothing is cached)
+    public UserDetails get(String username, Function<String, UserDetails> userLoader) {
+        //the user is loaded outside the cache lock (see CacheLoading)
+        return CacheLoading.get(cache, username, userLoader);
+    }
+
+    //remove user from cache, must be called when the user is changed or deleted
+    public void invalidate(String username) {
+        cache.synchronous().invalidate(username);
+    }
+}
@@ -0,0 +1,85 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.TokenCacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*Optional cache of jwt tokens that have already been verified (signature checked), used by JwtUtil so a client sending the
+same token on every request only pays for the signature check once. Keyed on a hash of the token (the tokens themselves
+are not kept in memory), the value is the contents (claims) of the token. The user's roles are not in the token, they
+come from UserPrincipalCache.
+Entries are removed when the token expires. Turned off by default (jwt.token-cache.enabled), then every token is verified.*/
+@Component
+public class VerifiedTokenCache {
+    //null if the cache is turned off
+    private final Cache<String, Claims> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.token-cache.enabled:false}") boolean enabled,
+                              @Value("${jwt.token-cache.max-size:10000}") long maxSize) {
+        this.cache = !enabled ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                //keep each token until it expires (tokens without expiration are never accepted, see JwtUtil)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return 0;
+                        }
+                        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /*get the claims of a token that has already been verified, or verify it with tokenVerifier (errors from tokenVerifier
+    are passed on and nothing is cached).
+    The returned claims may be shared with other requests and must not be changed*/
+    public Claims get(String token, Function<String, Claims> tokenVerifier) {
+        if (cache == null) {
+            return tokenVerifier.apply(token);
+        }
+        return cache.get(hash(token), tokenHash -> tokenVerifier.apply(token));
+    }
+
+    public TokenCacheStatsResponse getStats() {
+        if (cache == null) {
+            return new TokenCacheStatsResponse(false, 0, 0, 0, 0);
+        }
+        CacheStats stats = cache.stats();
+        return new TokenCacheStatsResponse(true, stats.hitCount(), stats.missCount(), stats.hitRate(), cache.estimatedSize());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            //every Java runtime has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
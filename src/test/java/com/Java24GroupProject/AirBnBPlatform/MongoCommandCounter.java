@@ -0,0 +1,39 @@
+package com.Java24GroupProject.AirBnBPlatform;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+//records the MongoDB commands sent by the current thread (the sync driver calls the listener on the thread running the
+//command), used by tests to check how many queries an operation makes
+public class MongoCommandCounter implements CommandListener {
+    private final ThreadLocal<List<String>> recordedCommands = new ThreadLocal<>();
+
+    //result of an action and the commands it sent, as "<command> <collection>" (e.g. "find listings")
+    public record Recording<T>(T result, List<String> commands) {
+    }
+
+    public <T> Recording<T> record(Supplier<T> action) {
+        List<String> commands = new ArrayList<>();
+        recordedCommands.set(commands);
+        try {
+            T result = action.get();
+            return new Recording<>(result, commands);
+        } finally {
+            recordedCommands.remove();
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        List<String> commands = recordedCommands.get();
+        if (commands != null) {
+            BsonValue collection = event.getCommand().get(event.getCommandName());
+            commands.add(event.getCommandName() + (collection != null && collection.isString() ? " " + collection.asString().getValue() : ""));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.Java24GroupProject.AirBnBPlatform;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/*base class for tests that need a MongoDB database. The database runs in a Docker container (started once and shared by all
+test classes, as they use the same Spring context), the tests are skipped if Docker is not available.
+All collections are emptied after each test. The MongoDB commands sent by a test can be recorded with mongoCommandCounter.*/
+@SpringBootTest(properties = {
+        "jwt.secret=integration-test-secret-integration-test-secret",
+        "jwt.expirationMs=3600000"})
+@Import(MongoIntegrationTest.MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MongoIntegrationTest {
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class MongoContainerConfiguration {
+        @Bean
+        @ServiceConnection
+        MongoDBContainer mongoDBContainer() {
+            return new MongoDBContainer("mongo:7.0");
+        }
+
+        @Bean
+        MongoCommandCounter mongoCommandCounter() {
+            return new MongoCommandCounter();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer mongoCommandCounterCustomizer(MongoCommandCounter mongoCommandCounter) {
+            return settings -> settings.addCommandListener(mongoCommandCounter);
+        }
+    }
+
+    @Autowired
+    protected MongoCommandCounter mongoCommandCounter;
+
+    @Autowired
+    protected MongoTemplate mongoTemplate;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected ListingRepository listingRepository;
+
+    @AfterEach
+    void deleteTestData() {
+        SecurityContextHolder.clearContext();
+        for (String collectionName : mongoTemplate.getCollectionNames()) {
+            if (!collectionName.startsWith("system.")) {
+                mongoTemplate.remove(new Query(), collectionName);
+            }
+        }
+    }
+
+    protected User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("Password1!");
+        user.setEmail(username + "@example.com");
+        user.setPhoneNr("+46" + Math.abs(username.hashCode()));
+        user.setRoles(Set.of(Role.USER));
+        user.setFavoriteListingIds(new ArrayList<>());
+        return userRepository.save(user);
+    }
+
+    protected Listing createListing(User host, List<DateRange> availableDates) {
+        Listing listing = new Listing();
+        listing.setTitle("Listing of " + host.getUsername());
+        listing.setDescription("description");
+        listing.setPricePerNight(new BigDecimal("100"));
+        listing.setCapacity(4);
+        listing.setLocation("Stockholm");
+        listing.setHostId(host.getId());
+        listing.setHostName(host.getUsername());
+        listing.setAvailableDates(availableDates);
+        listing.setRatingSum(0.0);
+        listing.setRatingCount(0);
+        listing.setAverageRating(0.0);
+        listing.setBayesianRating(0.0);
+        return listingRepository.save(listing);
+    }
+
+    //run action as the logged-in user (in the current thread)
+    protected <T> T runAs(User user, Supplier<T> action) {
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(user.getRoles().stream().map(Role::name).toArray(String[]::new))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    protected void runAs(User user, Runnable action) {
+        runAs(user, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    //start all tasks at the same time (one virtual thread each, so thousands of tasks can run at once), returns the result or
+    //the exception of each task
+    protected static List<Object> runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return task.call();
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.Java24GroupProject.AirBnBPlatform.benchmarks;
+
+import com.Java24GroupProject.AirBnBPlatform.util.JwtUtil;
+import com.Java24GroupProject.AirBnBPlatform.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/*requests per second on one thread for the jwt work JwtAuthenticationFilter does on each authenticated request (no user lookup):
+- before: what JwtUtil did before the signing key and parser were kept, the key and parser were built and the token verified
+  three times per request (extractUsername in the filter, then extractUsername and isTokenExpired in validateToken)
+- after: the current JwtUtil, the token is verified once with the prebuilt parser
+- after, token cache: the same with VerifiedTokenCache turned on (jwt.token-cache.enabled), a client sending the same token
+Not a unit test, run with:
+mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Java24GroupProject.AirBnBPlatform.benchmarks.JwtVerificationBenchmark*/
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+    private static final int EXPIRATION_MS = 3_600_000;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        UserDetails userDetails = User.withUsername("guest").password("unused").roles("USER").build();
+        JwtUtil jwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, new VerifiedTokenCache(false, 0));
+        JwtUtil cachingJwtUtil = new JwtUtil(SECRET, EXPIRATION_MS, new VerifiedTokenCache(true, 10_000));
+        String token = jwtUtil.generateToken(userDetails);
+
+        Map<String, Predicate<String>> variants = new LinkedHashMap<>();
+        variants.put("before", jwt -> {
+            String username = extractAllClaimsBefore(jwt).getSubject();
+            return username.equals(userDetails.getUsername())
+                    && extractAllClaimsBefore(jwt).getSubject().equals(userDetails.getUsername())
+                    && !extractAllClaimsBefore(jwt).getExpiration().before(new Date());
+        });
+        variants.put("after", jwt -> jwtUtil.validateToken(jwtUtil.extractAllClaims(jwt), userDetails));
+        variants.put("after, token cache", jwt -> cachingJwtUtil.validateToken(cachingJwtUtil.extractAllClaims(jwt), userDetails));
+
+        System.out.printf("%-20s %14s %12s%n", "variant", "requests/s", "us/request");
+        variants.forEach((name, variant) -> {
+            run(variant, token, WARMUP_NANOS);
+            long[] result = run(variant, token, MEASURE_NANOS);
+            System.out.printf("%-20s %14.0f %12.2f%n", name, result[0] * 1e9 / result[1], result[1] / 1e3 / result[0]);
+        });
+    }
+
+    //returns the number of requests and the elapsed nanoseconds
+    private static long[] run(Predicate<String> variant, String token, long nanos) {
+        long requests = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            if (!variant.test(token)) {
+                throw new IllegalStateException("token not valid");
+            }
+            requests++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return new long[]{requests, elapsed};
+    }
+
+    //JwtUtil.extractAllClaims before the key and parser were kept in fields
+    private static Claims extractAllClaimsBefore(String token) {
+        Key signinKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                .setSigningKey(signinKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
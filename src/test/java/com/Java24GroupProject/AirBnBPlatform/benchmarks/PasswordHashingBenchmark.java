@@ -0,0 +1,46 @@
+package com.Java24GroupProject.AirBnBPlatform.benchmarks;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*hashes per second on one thread (one core) for each password encoding setting (security.password-encoding.id and
+security.password-encoding.bcrypt-strength), to choose the settings for the login rate a server has to handle:
+logins per second per server ~ hashes per second per core * security.password-hashing.threads.
+Not a unit test, run with:
+mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Java24GroupProject.AirBnBPlatform.benchmarks.PasswordHashingBenchmark*/
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "Password1!";
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        Map<String, PasswordEncoder> encoders = new LinkedHashMap<>();
+        for (int strength = 10; strength <= 13; strength++) {
+            encoders.put("bcrypt " + strength, new BCryptPasswordEncoder(strength));
+        }
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        System.out.printf("%-10s %12s %12s%n", "encoding", "hashes/s", "ms/hash");
+        encoders.forEach((name, encoder) -> {
+            //a login is one matches() call, warm up before measuring
+            String hash = encoder.encode(PASSWORD);
+            encoder.matches(PASSWORD, hash);
+
+            int hashes = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                encoder.matches(PASSWORD, hash);
+                hashes++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MEASURE_NANOS);
+
+            System.out.printf("%-10s %12.1f %12.1f%n", name, hashes * 1e9 / elapsed, elapsed / 1e6 / hashes);
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.Java24GroupProject.AirBnBPlatform.benchmarks;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/*latency of the list endpoints that read a page of documents with references, before and after the @DBRef references
+were replaced by id fields (see ReferenceMigrationRunner):
+- before: the documents as they were stored with @DBRef, Spring Data read every reference with its own query when a
+  document was loaded (a review page: the listing, the host of the listing and the user of each review)
+- after: the same documents with id fields and the names stored next to them, a page is read with one query
+The data is stored in both shapes in the same database, the queries are sent with the MongoDB driver the way Spring Data
+sends them.
+Uses a MongoDB container (Docker) or the connection string given as argument (the benchmark database is dropped).
+Not a unit test, run with:
+mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Java24GroupProject.AirBnBPlatform.benchmarks.ReferenceLoadingBenchmark [-Dexec.args="mongodb://..."]*/
+public class ReferenceLoadingBenchmark {
+    private static final String DATABASE = "reference-loading-benchmark";
+    private static final int USERS = 1000;
+    private static final int LISTINGS = 200;
+    private static final int REVIEWS_PER_LISTING = 50;
+    private static final int BOOKINGS_PER_USER = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_PAGES = 2000;
+    private static final int MEASURED_PAGES = 5000;
+
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            run(args[0]);
+            return;
+        }
+        try (MongoDBContainer container = new MongoDBContainer("mongo:7.0")) {
+            container.start();
+            run(container.getConnectionString());
+        }
+    }
+
+    private static void run(String connectionString) {
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            MongoDatabase database = mongoClient.getDatabase(DATABASE);
+            database.drop();
+            TestData testData = insertTestData(database);
+            Random random = new Random(1);
+
+            MongoCollection<Document> dbRefReviews = database.getCollection("dbref_reviews");
+            MongoCollection<Document> dbRefBookings = database.getCollection("dbref_bookings");
+            MongoCollection<Document> dbRefListings = database.getCollection("dbref_listings");
+            MongoCollection<Document> users = database.getCollection("users");
+            MongoCollection<Document> reviews = database.getCollection("reviews");
+            MongoCollection<Document> bookings = database.getCollection("bookings");
+
+            System.out.printf("%-32s %10s %10s %10s %10s%n", "page", "queries", "p50 ms", "p99 ms", "pages/s");
+            measure("reviews of listing, before", () -> {
+                int queries = 1;
+                for (Document review : dbRefReviews.find(Filters.eq("listing", new DBRef("dbref_listings", testData.randomListing(random))))
+                        .sort(Sorts.descending("createdAt")).limit(PAGE_SIZE)) {
+                    Document listing = dbRefListings.find(Filters.eq("_id", review.get("listing", DBRef.class).getId())).first();
+                    users.find(Filters.eq("_id", listing.get("host", DBRef.class).getId())).first();
+                    users.find(Filters.eq("_id", review.get("user", DBRef.class).getId())).first();
+                    queries += 3;
+                }
+                return queries;
+            });
+            measure("reviews of listing, after", () -> {
+                reviews.find(Filters.eq("listingId", testData.randomListing(random)))
+                        .sort(Sorts.descending("createdAt")).limit(PAGE_SIZE).into(new ArrayList<>());
+                return 1;
+            });
+            measure("bookings of user, before", () -> {
+                int queries = 1;
+                for (Document booking : dbRefBookings.find(Filters.eq("user", new DBRef("users", testData.randomUser(random))))
+                        .sort(Sorts.ascending("_id")).limit(PAGE_SIZE)) {
+                    Document listing = dbRefListings.find(Filters.eq("_id", booking.get("listing", DBRef.class).getId())).first();
+                    users.find(Filters.eq("_id", listing.get("host", DBRef.class).getId())).first();
+                    users.find(Filters.eq("_id", booking.get("user", DBRef.class).getId())).first();
+                    queries += 3;
+                }
+                return queries;
+            });
+            measure("bookings of user, after", () -> {
+                bookings.find(Filters.eq("userId", testData.randomUser(random)))
+                        .sort(Sorts.ascending("_id")).limit(PAGE_SIZE).into(new ArrayList<>());
+                return 1;
+            });
+
+            database.drop();
+        }
+    }
+
+    //reads pages with pageReader (returns the number of queries sent) and prints the latency
+    private static void measure(String name, IntSupplier pageReader) {
+        for (int i = 0; i < WARMUP_PAGES; i++) {
+            pageReader.getAsInt();
+        }
+        long[] latencies = new long[MEASURED_PAGES];
+        int queries = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PAGES; i++) {
+            long pageStart = System.nanoTime();
+            queries += pageReader.getAsInt();
+            latencies[i] = System.nanoTime() - pageStart;
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf("%-32s %10.1f %10.2f %10.2f %10.0f%n", name, (double) queries / MEASURED_PAGES,
+                latencies[MEASURED_PAGES / 2] / 1e6, latencies[(int) Math.ceil(MEASURED_PAGES * 0.99) - 1] / 1e6,
+                MEASURED_PAGES * 1e9 / elapsed);
+    }
+
+    //the same users, listings, reviews and bookings stored with DBRefs (dbref_ collections) and with id fields
+    private static TestData insertTestData(MongoDatabase database) {
+        Random random = new Random(0);
+        List<ObjectId> userIds = new ArrayList<>();
+        List<Document> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            ObjectId userId = new ObjectId();
+            userIds.add(userId);
+            users.add(new Document("_id", userId).append("username", "user" + i).append("email", "user" + i + "@example.com"));
+        }
+        database.getCollection("users").insertMany(users);
+
+        List<ObjectId> listingIds = new ArrayList<>();
+        List<Document> dbRefListings = new ArrayList<>();
+        List<Document> listings = new ArrayList<>();
+        for (int i = 0; i < LISTINGS; i++) {
+            ObjectId listingId = new ObjectId();
+            ObjectId hostId = userIds.get(i % USERS);
+            listingIds.add(listingId);
+            Document listing = new Document("_id", listingId).append("title", "Listing " + i).append("description", "description")
+                    .append("location", "Stockholm").append("hostName", "user" + (i % USERS));
+            dbRefListings.add(new Document(listing).append("host", new DBRef("users", hostId)));
+            listings.add(new Document(listing).append("hostId", hostId));
+        }
+        database.getCollection("dbref_listings").insertMany(dbRefListings);
+        database.getCollection("listings").insertMany(listings);
+
+        List<Document> dbRefReviews = new ArrayList<>();
+        List<Document> reviews = new ArrayList<>();
+        for (ObjectId listingId : listingIds) {
+            for (int i = 0; i < REVIEWS_PER_LISTING; i++) {
+                int user = random.nextInt(USERS);
+                Document review = new Document("_id", new ObjectId()).append("username", "user" + user)
+                        .append("rating", (double) (random.nextInt(5) + 1)).append("createdAt", new Date(random.nextInt(1_000_000) * 1000L));
+                dbRefReviews.add(new Document(review).append("listing", new DBRef("dbref_listings", listingId))
+                        .append("user", new DBRef("users", userIds.get(user))));
+                reviews.add(new Document(review).append("listingId", listingId).append("userId", userIds.get(user)));
+            }
+        }
+        database.getCollection("dbref_reviews").insertMany(dbRefReviews);
+        database.getCollection("reviews").insertMany(reviews);
+
+        List<Document> dbRefBookings = new ArrayList<>();
+        List<Document> bookings = new ArrayList<>();
+        for (ObjectId userId : userIds) {
+            for (int i = 0; i < BOOKINGS_PER_USER; i++) {
+                int listing = random.nextInt(LISTINGS);
+                Document booking = new Document("_id", new ObjectId()).append("listingTitle", "Listing " + listing)
+                        .append("numberOfGuests", 2).append("bookingStatus", "ACCEPTED");
+                dbRefBookings.add(new Document(booking).append("listing", new DBRef("dbref_listings", listingIds.get(listing)))
+                        .append("user", new DBRef("users", userId)));
+                bookings.add(new Document(booking).append("listingId", listingIds.get(listing)).append("userId", userId));
+            }
+        }
+        database.getCollection("dbref_bookings").insertMany(dbRefBookings);
+        database.getCollection("bookings").insertMany(bookings);
+
+        //the indexes of the list queries, before (see MongoIndexInitializer for the current ones)
+        database.getCollection("dbref_reviews").createIndex(Indexes.compoundIndex(Indexes.ascending("listing"), Indexes.descending("createdAt")));
+        database.getCollection("reviews").createIndex(Indexes.compoundIndex(Indexes.ascending("listingId"), Indexes.descending("createdAt"), Indexes.ascending("_id")));
+        database.getCollection("dbref_bookings").createIndex(Indexes.ascending("user"));
+        database.getCollection("bookings").createIndex(Indexes.ascending("userId"));
+        return new TestData(userIds, listingIds);
+    }
+
+    private record TestData(List<ObjectId> userIds, List<ObjectId> listingIds) {
+        ObjectId randomUser(Random random) {
+            return userIds.get(random.nextInt(userIds.size()));
+        }
+
+        ObjectId randomListing(Random random) {
+            return listingIds.get(random.nextInt(listingIds.size()));
+        }
+    }
+}
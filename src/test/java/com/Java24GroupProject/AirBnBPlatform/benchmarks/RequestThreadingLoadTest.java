@@ -0,0 +1,184 @@
+package com.Java24GroupProject.AirBnBPlatform.benchmarks;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/*throughput and p99 latency at 2000 concurrent clients, with requests run on Tomcat's pool of 200 platform threads and on
+virtual threads (spring.threads.virtual.enabled, see VirtualThreadConfiguration). Each client sends a request as soon as it
+has the answer to its previous one.
+Without arguments an embedded Tomcat is started for each mode, set up like Spring Boot does it, with a request that makes
+DATABASE_CALLS_PER_REQUEST sequential blocking calls of DATABASE_CALL_MILLIS (like BookingService does with MongoDB). The
+calls share a pool of connections: the MongoDB driver default (100) with platform threads, mongodb.pool.max-size (500) with
+virtual threads.
+With urls as arguments those are loaded instead, e.g. two instances of the app started with spring.threads.virtual.enabled
+false and true (and the same MongoDB database), the url must answer GET with 2xx without login.
+Not a unit test, run with:
+mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Java24GroupProject.AirBnBPlatform.benchmarks.RequestThreadingLoadTest [-Dexec.args="url..."]*/
+public class RequestThreadingLoadTest {
+    private static final int CLIENTS = 2000;
+    private static final long WARMUP_NANOS = 5_000_000_000L;
+    private static final long MEASURE_NANOS = 15_000_000_000L;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int PLATFORM_CONNECTION_POOL = 100;
+    private static final int VIRTUAL_CONNECTION_POOL = 500;
+    private static final int DATABASE_CALLS_PER_REQUEST = 3;
+    private static final long DATABASE_CALL_MILLIS = 10;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-30s %12s %10s %10s %10s%n", "server", "requests/s", "p50 ms", "p99 ms", "errors");
+        if (args.length > 0) {
+            for (String url : args) {
+                print(url, load(URI.create(url)));
+            }
+            return;
+        }
+        print("platform threads (" + PLATFORM_THREADS + ")", loadEmbeddedServer(false));
+        print("virtual threads", loadEmbeddedServer(true));
+    }
+
+    private static LoadResult loadEmbeddedServer(boolean virtualThreads) throws Exception {
+        Tomcat tomcat = startServer(virtualThreads);
+        try {
+            return load(URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/"));
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static Tomcat startServer(boolean virtualThreads) throws LifecycleException {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(System.getProperty("java.io.tmpdir"));
+        Connector connector = new Connector();
+        connector.setPort(0);
+        //the defaults of Spring Boot (server.tomcat.threads.max, server.tomcat.max-connections)
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) connector.getProtocolHandler();
+        protocol.setMaxConnections(8192);
+        if (virtualThreads) {
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        } else {
+            protocol.setMaxThreads(PLATFORM_THREADS);
+        }
+        tomcat.setConnector(connector);
+
+        Semaphore connectionPool = new Semaphore(virtualThreads ? VIRTUAL_CONNECTION_POOL : PLATFORM_CONNECTION_POOL, true);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "request", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    for (int i = 0; i < DATABASE_CALLS_PER_REQUEST; i++) {
+                        connectionPool.acquire();
+                        try {
+                            Thread.sleep(DATABASE_CALL_MILLIS);
+                        } finally {
+                            connectionPool.release();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    return;
+                }
+                response.setContentType("text/plain");
+                response.getWriter().write("ok");
+            }
+        });
+        context.addServletMappingDecoded("/", "request");
+        tomcat.start();
+        return tomcat;
+    }
+
+    private static LoadResult load(URI uri) throws Exception {
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            runClients(httpClient, request, WARMUP_NANOS);
+            return runClients(httpClient, request, MEASURE_NANOS);
+        }
+    }
+
+    private static LoadResult runClients(HttpClient httpClient, HttpRequest request, long nanos) throws Exception {
+        long end = System.nanoTime() + nanos;
+        List<ClientResult> clientResults = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ClientResult>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> runClient(httpClient, request, end)));
+            }
+            for (Future<ClientResult> future : futures) {
+                clientResults.add(future.get());
+            }
+        }
+
+        long[] latencies = clientResults.stream().flatMapToLong(result -> Arrays.stream(result.latencies(), 0, result.requests())).sorted().toArray();
+        long errors = clientResults.stream().mapToLong(ClientResult::errors).sum();
+        return new LoadResult(latencies.length * 1e9 / nanos, percentile(latencies, 0.50), percentile(latencies, 0.99), errors);
+    }
+
+    //sends requests one after the other until end, returns the latency of each successful request
+    private static ClientResult runClient(HttpClient httpClient, HttpRequest request, long end) {
+        long[] latencies = new long[1024];
+        int requests = 0;
+        long errors = 0;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 != 2) {
+                    errors++;
+                    continue;
+                }
+            } catch (IOException e) {
+                errors++;
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, requests * 2);
+            }
+            latencies[requests++] = System.nanoTime() - start;
+        }
+        return new ClientResult(latencies, requests, errors);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    private static void print(String server, LoadResult result) {
+        System.out.printf("%-30s %12.0f %10.1f %10.1f %10d%n", server, result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.errors());
+    }
+
+    private record ClientResult(long[] latencies, int requests, long errors) {
+    }
+
+    private record LoadResult(double requestsPerSecond, double p50Millis, double p99Millis, long errors) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoConfigurationTest {
+    private final TimeZone defaultTimeZone = TimeZone.getDefault();
+
+    @AfterEach
+    void restoreTimeZone() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "Europe/Stockholm", "America/Los_Angeles", "Asia/Tokyo"})
+    void dateRangeIsStoredAsUtcMidnightInEveryTimeZone(String timeZone) {
+        TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+        DateRange dateRange = new DateRange(LocalDate.parse("2025-03-01"), LocalDate.parse("2025-03-05"));
+
+        Document document = new MongoConfiguration.DateRangeWritingConverter().convert(dateRange);
+        DateRange readDateRange = new MongoConfiguration.DateRangeReadingConverter().convert(document);
+
+        assertThat(document.getDate("startDate").toInstant()).isEqualTo(Instant.parse("2025-03-01T00:00:00Z"));
+        assertThat(document.getDate("endDate").toInstant()).isEqualTo(Instant.parse("2025-03-05T00:00:00Z"));
+        assertThat(readDateRange.isIdenticalToAnotherDateRange(dateRange)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "Europe/Stockholm", "America/Los_Angeles", "Asia/Tokyo"})
+    void localDateRoundTripDoesNotDependOnTimeZone(String timeZone) {
+        TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+        LocalDate date = LocalDate.parse("2024-02-29");
+
+        Date storedDate = new MongoConfiguration.LocalDateWritingConverter().convert(date);
+
+        assertThat(storedDate.toInstant()).isEqualTo(Instant.parse("2024-02-29T00:00:00Z"));
+        assertThat(new MongoConfiguration.LocalDateReadingConverter().convert(storedDate)).isEqualTo(date);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Europe/Stockholm", "America/Los_Angeles", "Asia/Tokyo"})
+    void datesWrittenInServerTimeZoneAreReadAsTheSameDate(String timeZone) {
+        //format of dates written before the converters were pinned to UTC: midnight in the server time zone
+        LocalDate date = LocalDate.parse("2025-03-01");
+        Date legacyDate = Date.from(date.atStartOfDay(ZoneId.of(timeZone)).toInstant());
+
+        assertThat(new MongoConfiguration.LocalDateReadingConverter().convert(legacyDate)).isEqualTo(date);
+        DateRange readDateRange = new MongoConfiguration.DateRangeReadingConverter().convert(new Document()
+                .append("startDate", legacyDate)
+                .append("endDate", Date.from(date.plusDays(2).atStartOfDay(ZoneId.of(timeZone)).toInstant())));
+        assertThat(readDateRange.getStartDate()).isEqualTo(date);
+        assertThat(readDateRange.numberOfNights()).isEqualTo(2);
+    }
+
+    @Test
+    void customConversionsHandleLocalDateAndDateRange() {
+        MongoConfiguration mongoConfiguration = new MongoConfiguration();
+
+        assertThat(mongoConfiguration.mongoCustomConversions().hasCustomWriteTarget(LocalDate.class)).isTrue();
+        assertThat(mongoConfiguration.mongoCustomConversions().hasCustomWriteTarget(DateRange.class)).isTrue();
+        assertThat(mongoConfiguration.mongoCustomConversions().hasCustomReadTarget(Date.class, LocalDate.class)).isTrue();
+    }
+}
@@ -0,0 +1,167 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import com.Java24GroupProject.AirBnBPlatform.services.BookingService;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceMigrationRunnerTest extends MongoIntegrationTest {
+    //time zone of a server that ran an earlier version, which stored dates as midnight in the server time zone
+    private static final ZoneId SERVER_ZONE = ZoneId.of("Europe/Stockholm");
+
+    @Autowired
+    private ReferenceMigrationRunner referenceMigrationRunner;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @BeforeEach
+    void removeMigrationRecords() {
+        //the migrations were recorded when the application started
+        mongoTemplate.remove(new Query(), "migrations");
+    }
+
+    //documents as saved when the references were @DBRef fields (with the names stored next to them)
+    @Test
+    void dbRefDocumentsAreMigratedToIdFields() {
+        ObjectId hostId = new ObjectId();
+        ObjectId guestId = new ObjectId();
+        ObjectId listingId = new ObjectId();
+        ObjectId bookingId = new ObjectId();
+        ObjectId reviewId = new ObjectId();
+        mongoTemplate.getCollection("users").insertMany(List.of(
+                new Document("_id", hostId).append("username", "host").append("favorites", List.of()),
+                new Document("_id", guestId).append("username", "guest").append("favorites", List.of(new DBRef("listings", listingId)))));
+        mongoTemplate.getCollection("listings").insertOne(new Document("_id", listingId).append("title", "Cabin")
+                .append("host", new DBRef("users", hostId)).append("hostName", "host"));
+        mongoTemplate.getCollection("bookings").insertOne(new Document("_id", bookingId)
+                .append("listing", new DBRef("listings", listingId)).append("listingTitle", "Cabin")
+                .append("user", new DBRef("users", guestId)));
+        mongoTemplate.getCollection("reviews").insertOne(new Document("_id", reviewId)
+                .append("listing", new DBRef("listings", listingId))
+                .append("user", new DBRef("users", guestId)).append("username", "guest").append("rating", 4.0));
+
+        referenceMigrationRunner.run(null);
+
+        //the id fields are stored as ObjectIds and the old reference fields are removed
+        assertThat(storedDocument("listings", listingId)).containsEntry("hostId", hostId).doesNotContainKey("host");
+        assertThat(storedDocument("bookings", bookingId)).containsEntry("listingId", listingId).containsEntry("userId", guestId)
+                .doesNotContainKeys("listing", "user");
+        assertThat(storedDocument("reviews", reviewId)).containsEntry("listingId", listingId).containsEntry("userId", guestId)
+                .doesNotContainKeys("listing", "user");
+        assertThat(storedDocument("users", guestId)).containsEntry("favoriteListingIds", List.of(listingId)).doesNotContainKey("favorites");
+
+        //and are read by the model classes together with the denormalized names
+        Listing listing = listingRepository.findById(listingId.toHexString()).orElseThrow();
+        assertThat(listing.getHostId()).isEqualTo(hostId.toHexString());
+        assertThat(listing.getHostName()).isEqualTo("host");
+        Booking booking = bookingRepository.findById(bookingId.toHexString()).orElseThrow();
+        assertThat(booking.getListingId()).isEqualTo(listingId.toHexString());
+        assertThat(booking.getUserId()).isEqualTo(guestId.toHexString());
+        assertThat(booking.getListingTitle()).isEqualTo("Cabin");
+        Review review = reviewRepository.findById(reviewId.toHexString()).orElseThrow();
+        assertThat(review.getListingId()).isEqualTo(listingId.toHexString());
+        assertThat(review.getUserId()).isEqualTo(guestId.toHexString());
+        assertThat(review.getUsername()).isEqualTo("guest");
+        assertThat(reviewRepository.findByListingId(listingId.toHexString())).hasSize(1);
+        assertThat(userRepository.findById(guestId.toHexString()).orElseThrow().getFavoriteListingIds())
+                .containsExactly(listingId.toHexString());
+        assertThat(mongoTemplate.getCollection("migrations").find(Filters.eq("_id", "dbref-to-id-fields")).first()).isNotNull();
+    }
+
+    @Test
+    void listingWithServerZoneDatesCanBeBookedAfterMigration() {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"))));
+        mongoTemplate.getCollection("listings").updateOne(Filters.eq("_id", new ObjectId(listing.getId())),
+                Updates.set("availableDates", List.of(dateRange(serverZoneMidnight("2030-06-01"), serverZoneMidnight("2030-06-30")))));
+
+        referenceMigrationRunner.run(null);
+
+        assertThat(storedListing(listing).get("availableDates"))
+                .isEqualTo(List.of(dateRange(utcMidnight("2030-06-01"), utcMidnight("2030-06-30"))));
+
+        runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15")));
+
+        assertThat(storedListing(listing).get("availableDates")).isEqualTo(List.of(
+                dateRange(utcMidnight("2030-06-01"), utcMidnight("2030-06-10")),
+                dateRange(utcMidnight("2030-06-15"), utcMidnight("2030-06-30"))));
+    }
+
+    @Test
+    void bookingAndReviewDatesAreRewrittenToUtcMidnight() {
+        ObjectId bookingId = new ObjectId();
+        ObjectId reviewId = new ObjectId();
+        mongoTemplate.getCollection("bookings").insertOne(new Document("_id", bookingId)
+                .append("bookingDates", dateRange(serverZoneMidnight("2030-06-10"), serverZoneMidnight("2030-06-15"))));
+        mongoTemplate.getCollection("reviews").insertOne(new Document("_id", reviewId)
+                .append("endDate", serverZoneMidnight("2030-06-15")));
+
+        referenceMigrationRunner.run(null);
+
+        assertThat(mongoTemplate.getCollection("bookings").find(Filters.eq("_id", bookingId)).first().get("bookingDates"))
+                .isEqualTo(dateRange(utcMidnight("2030-06-10"), utcMidnight("2030-06-15")));
+        assertThat(mongoTemplate.getCollection("reviews").find(Filters.eq("_id", reviewId)).first().getDate("endDate"))
+                .isEqualTo(utcMidnight("2030-06-15"));
+        assertThat(mongoTemplate.getCollection("migrations").find(Filters.eq("_id", "dates-to-utc-midnight")).first()).isNotNull();
+    }
+
+    private Document storedListing(Listing listing) {
+        return storedDocument("listings", new ObjectId(listing.getId()));
+    }
+
+    private Document storedDocument(String collection, ObjectId id) {
+        return mongoTemplate.getCollection(collection).find(Filters.eq("_id", id)).first();
+    }
+
+    private static Document dateRange(Date startDate, Date endDate) {
+        return new Document("startDate", startDate).append("endDate", endDate);
+    }
+
+    private static Date serverZoneMidnight(String date) {
+        return Date.from(LocalDate.parse(date).atStartOfDay(SERVER_ZONE).toInstant());
+    }
+
+    private static Date utcMidnight(String date) {
+        return Date.from(LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    private static BookingRequest bookingRequest(Listing listing, String startDate, String endDate) {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setListingId(listing.getId());
+        bookingRequest.setStartDate(startDate);
+        bookingRequest.setEndDate(endDate);
+        bookingRequest.setNumberOfGuests(2);
+        return bookingRequest;
+    }
+}
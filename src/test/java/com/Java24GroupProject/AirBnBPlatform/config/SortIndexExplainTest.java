@@ -0,0 +1,153 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.util.Pagination;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the sorted page queries (sort on a field and then on id, see Pagination.toPageRequest) must read the documents in index order,
+//checked with explain(): the winning plan has to scan the expected index and must not have a SORT stage (an in-memory sort)
+class SortIndexExplainTest extends MongoIntegrationTest {
+    private static final int DOCUMENTS = 50;
+    private static final int PAGE_SIZE = 21;
+
+    @ParameterizedTest
+    @CsvSource({
+            "createdAt, -1, createdAt_id",
+            "pricePerNight, 1, pricePerNight_id",
+            "capacity, 1, capacity_id",
+            "averageRating, -1, averageRating_id",
+            "bayesianRating, -1, bayesianRating_id"})
+    void listingPagesUseSortIndex(String field, int direction, String index) {
+        insertDocuments(Listing.class, i -> new Document("createdAt", new Date(i * 1000L)).append("updatedAt", new Date(i * 1000L))
+                .append("pricePerNight", (double) (i % 10)).append("capacity", i % 5).append("location", "Stockholm")
+                .append("averageRating", (double) (i % 5)).append("bayesianRating", (double) (i % 5)));
+
+        assertUsesIndexWithoutSort(Listing.class, pageFilter(), field, direction, index);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "createdAt, -1, createdAt_id",
+            "updatedAt, -1, updatedAt_id",
+            "bookingStatus, 1, bookingStatus_id"})
+    void bookingPagesUseSortIndex(String field, int direction, String index) {
+        insertDocuments(Booking.class, i -> new Document("createdAt", new Date(i * 1000L)).append("updatedAt", new Date(i * 1000L))
+                .append("bookingStatus", i % 2 == 0 ? "PENDING" : "ACCEPTED").append("userId", new ObjectId()).append("listingId", new ObjectId()));
+
+        assertUsesIndexWithoutSort(Booking.class, pageFilter(), field, direction, index);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "createdAt, -1, listingId_createdAt_id_rating",
+            "rating, -1, listingId_rating_id"})
+    void reviewPagesOfListingUseSortIndex(String field, int direction, String index) {
+        ObjectId listingId = new ObjectId();
+        insertDocuments(Review.class, i -> new Document("listingId", i % 2 == 0 ? listingId : new ObjectId())
+                .append("userId", new ObjectId()).append("createdAt", new Date(i * 1000L)).append("rating", (double) (i % 5 + 1)));
+
+        assertUsesIndexWithoutSort(Review.class, pageFilter().append("listingId", listingId), field, direction, index);
+    }
+
+    //the review feed (see ReviewRepositoryCustomImpl.findFeedPage) uses the same index as the createdAt pages
+    @Test
+    void reviewFeedUsesSortIndex() {
+        ObjectId listingId = new ObjectId();
+        insertDocuments(Review.class, i -> new Document("listingId", i % 2 == 0 ? listingId : new ObjectId())
+                .append("userId", new ObjectId()).append("createdAt", new Date(i / 3 * 1000L)).append("rating", (double) (i % 5 + 1)));
+        Date beforeCreatedAt = new Date(10_000L);
+        Document filter = new Document("listingId", listingId)
+                .append("createdAt", new Document("$lte", beforeCreatedAt))
+                .append("$nor", List.of(new Document("createdAt", beforeCreatedAt).append("_id", new Document("$lte", new ObjectId()))))
+                .append("rating", new Document("$gte", 4.0));
+
+        Document plan = explain(Review.class, filter, new Document("createdAt", -1).append("_id", 1));
+        assertThat(indexNames(plan)).containsExactly("listingId_createdAt_id_rating");
+        assertThat(stages(plan)).doesNotContain("SORT");
+    }
+
+    @Test
+    void idPagesUseIdIndex() {
+        insertDocuments(Listing.class, i -> new Document("location", "Stockholm"));
+
+        Document plan = explain(Listing.class, pageFilter(), new Document("_id", 1));
+        assertThat(indexNames(plan)).containsExactly("_id_");
+        assertThat(stages(plan)).doesNotContain("SORT");
+    }
+
+    private void assertUsesIndexWithoutSort(Class<?> entityClass, Document filter, String field, int direction, String index) {
+        Document plan = explain(entityClass, filter, new Document(field, direction).append("_id", 1));
+
+        assertThat(indexNames(plan)).containsExactly(index);
+        assertThat(stages(plan)).doesNotContain("SORT");
+    }
+
+    //filter of all page queries, _id > cursor (first page)
+    private static Document pageFilter() {
+        return new Document("_id", new Document("$gt", new ObjectId(Pagination.FIRST_CURSOR)));
+    }
+
+    private void insertDocuments(Class<?> entityClass, IntFunction<Document> documentFactory) {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents.add(documentFactory.apply(i));
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass)).insertMany(documents);
+    }
+
+    private Document explain(Class<?> entityClass, Document filter, Document sort) {
+        Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+                .find(filter).sort(sort).limit(PAGE_SIZE).explain();
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    }
+
+    //stage names of the plan and all its input stages
+    private static List<String> stages(Document plan) {
+        List<String> stages = new ArrayList<>();
+        collect(plan, stages, null);
+        return stages;
+    }
+
+    //names of the indexes scanned by the plan
+    private static List<String> indexNames(Document plan) {
+        List<String> indexNames = new ArrayList<>();
+        collect(plan, null, indexNames);
+        return indexNames;
+    }
+
+    private static void collect(Document stage, List<String> stages, List<String> indexNames) {
+        //MongoDB 7 can wrap the plan in a queryPlan (slot based execution)
+        if (stage.containsKey("queryPlan")) {
+            collect(stage.get("queryPlan", Document.class), stages, indexNames);
+            return;
+        }
+        if (stages != null) {
+            stages.add(stage.getString("stage"));
+        }
+        if (indexNames != null && stage.containsKey("indexName")) {
+            indexNames.add(stage.getString("indexName"));
+        }
+        if (stage.containsKey("inputStage")) {
+            collect(stage.get("inputStage", Document.class), stages, indexNames);
+        }
+        if (stage.containsKey("inputStages")) {
+            for (Document inputStage : stage.getList("inputStages", Document.class)) {
+                collect(inputStage, stages, indexNames);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvailableDateRangesTest {
+
+    private static DateRange range(String startDate, String endDate) {
+        return new DateRange(LocalDate.parse(startDate), LocalDate.parse(endDate));
+    }
+
+    private static List<String> asStrings(AvailableDateRanges availableDateRanges) {
+        return availableDateRanges.toList().stream()
+                .map(dateRange -> dateRange.getStartDate() + "/" + dateRange.getEndDate())
+                .toList();
+    }
+
+    @Test
+    void constructorSortsAndMergesOverlappingAndAdjacentRanges() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(
+                range("2025-03-10", "2025-03-15"),
+                range("2025-03-01", "2025-03-05"),
+                range("2025-03-05", "2025-03-07"),
+                range("2025-03-12", "2025-03-20"),
+                range("2025-03-13", "2025-03-14")));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-07", "2025-03-10/2025-03-20");
+    }
+
+    @Test
+    void addMergesWithAdjacentRangeBefore() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-05")));
+
+        availableDateRanges.add(range("2025-03-05", "2025-03-08"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-08");
+    }
+
+    @Test
+    void addMergesWithAdjacentRangeAfter() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-05", "2025-03-08")));
+
+        availableDateRanges.add(range("2025-03-01", "2025-03-05"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-08");
+    }
+
+    @Test
+    void addFillingGapMergesBothNeighbours() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(
+                range("2025-03-01", "2025-03-05"),
+                range("2025-03-10", "2025-03-12")));
+
+        availableDateRanges.add(range("2025-03-05", "2025-03-10"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-12");
+    }
+
+    @Test
+    void addNonAdjacentRangeKeepsRangesSeparate() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-05")));
+
+        availableDateRanges.add(range("2025-03-07", "2025-03-08"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-05", "2025-03-07/2025-03-08");
+    }
+
+    @Test
+    void addOverlappingRangeThrows() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-05")));
+
+        assertThatThrownBy(() -> availableDateRanges.add(range("2025-03-04", "2025-03-08")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> availableDateRanges.add(range("2025-02-25", "2025-03-02")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-05");
+    }
+
+    @Test
+    void addContainedOrIdenticalRangeThrows() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-10")));
+
+        assertThatThrownBy(() -> availableDateRanges.add(range("2025-03-03", "2025-03-05")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> availableDateRanges.add(range("2025-03-01", "2025-03-10")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> availableDateRanges.add(range("2025-02-25", "2025-03-15")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-10");
+    }
+
+    @Test
+    void removeContainedRangeSplitsRange() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-10")));
+
+        availableDateRanges.remove(range("2025-03-03", "2025-03-05"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-03", "2025-03-05/2025-03-10");
+    }
+
+    @Test
+    void removeAtStartOrEndShrinksRange() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-10")));
+
+        availableDateRanges.remove(range("2025-03-01", "2025-03-03"));
+        availableDateRanges.remove(range("2025-03-08", "2025-03-10"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-03/2025-03-08");
+    }
+
+    @Test
+    void removeWholeRangeRemovesIt() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(
+                range("2025-03-01", "2025-03-05"),
+                range("2025-03-10", "2025-03-12")));
+
+        availableDateRanges.remove(range("2025-03-01", "2025-03-05"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-10/2025-03-12");
+    }
+
+    @Test
+    void removeOverlappingOrSpanningRangeThrows() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(
+                range("2025-03-01", "2025-03-05"),
+                range("2025-03-05", "2025-03-06"),
+                range("2025-03-10", "2025-03-12")));
+
+        //partly outside the available dates
+        assertThatThrownBy(() -> availableDateRanges.remove(range("2025-03-04", "2025-03-08")))
+                .isInstanceOf(IllegalArgumentException.class);
+        //spans the gap between two ranges
+        assertThatThrownBy(() -> availableDateRanges.remove(range("2025-03-05", "2025-03-11")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-06", "2025-03-10/2025-03-12");
+    }
+
+    @Test
+    void removeThenAddRestoresRange() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-10")));
+
+        availableDateRanges.remove(range("2025-03-03", "2025-03-05"));
+        availableDateRanges.add(range("2025-03-03", "2025-03-05"));
+
+        assertThat(asStrings(availableDateRanges)).containsExactly("2025-03-01/2025-03-10");
+        assertThat(availableDateRanges.size()).isEqualTo(1);
+    }
+
+    @Test
+    void floorCeilingAndContains() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(
+                range("2025-03-01", "2025-03-05"),
+                range("2025-03-10", "2025-03-12")));
+
+        assertThat(availableDateRanges.floor(LocalDate.parse("2025-03-07")).getStartDate()).isEqualTo("2025-03-01");
+        assertThat(availableDateRanges.ceiling(LocalDate.parse("2025-03-07")).getStartDate()).isEqualTo("2025-03-10");
+        assertThat(availableDateRanges.floor(LocalDate.parse("2025-02-01"))).isNull();
+        assertThat(availableDateRanges.ceiling(LocalDate.parse("2025-03-11"))).isNull();
+        assertThat(availableDateRanges.contains(range("2025-03-02", "2025-03-05"))).isTrue();
+        assertThat(availableDateRanges.contains(range("2025-03-04", "2025-03-11"))).isFalse();
+    }
+
+    @Test
+    void toListReturnsRangesThatCannotChangeTheIndex() {
+        AvailableDateRanges availableDateRanges = new AvailableDateRanges(List.of(range("2025-03-01", "2025-03-05")));
+
+        //the returned list is a copy, changing it does not change the available dates
+        availableDateRanges.toList().clear();
+
+        assertThat(availableDateRanges.contains(range("2025-03-01", "2025-03-05"))).isTrue();
+    }
+}
@@ -0,0 +1,73 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DateRangeTest {
+    //configured like the ObjectMapper of the application (java.time and parameter names modules, dates as ISO strings)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void epochDaysMatchDates() {
+        DateRange dateRange = new DateRange(LocalDate.parse("2025-03-01"), LocalDate.parse("2025-03-05"));
+
+        assertThat(dateRange.startDay()).isEqualTo(LocalDate.parse("2025-03-01").toEpochDay());
+        assertThat(dateRange.endDay()).isEqualTo(LocalDate.parse("2025-03-05").toEpochDay());
+        assertThat(DateRange.ofEpochDays(dateRange.startDay(), dateRange.endDay()).isIdenticalToAnotherDateRange(dateRange)).isTrue();
+        assertThat(DateRange.ofEpochDays(0, 1).getStartDate()).isEqualTo("1970-01-01");
+    }
+
+    @Test
+    void numberOfNightsCountsNightsAcrossMonthAndYear() {
+        assertThat(new DateRange(LocalDate.parse("2025-03-01"), LocalDate.parse("2025-03-02")).numberOfNights()).isEqualTo(1);
+        assertThat(new DateRange(LocalDate.parse("2024-12-30"), LocalDate.parse("2025-01-02")).numberOfNights()).isEqualTo(3);
+        assertThat(new DateRange(LocalDate.parse("2024-02-28"), LocalDate.parse("2024-03-01")).numberOfNights()).isEqualTo(2);
+    }
+
+    @Test
+    void endDateMustBeAfterStartDate() {
+        assertThatThrownBy(() -> new DateRange(LocalDate.parse("2025-03-05"), LocalDate.parse("2025-03-05")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DateRange.ofEpochDays(10, 9))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void overlapAndContainment() {
+        DateRange dateRange = DateRange.ofEpochDays(10, 20);
+
+        assertThat(DateRange.ofEpochDays(12, 15).isWithinAnotherDateRange(dateRange)).isTrue();
+        assertThat(DateRange.ofEpochDays(15, 21).isWithinAnotherDateRange(dateRange)).isFalse();
+        assertThat(DateRange.ofEpochDays(19, 25).hasOverlapWithAnotherDateRange(dateRange)).isTrue();
+        //ranges that only touch do not overlap (check-out day is the next check-in day)
+        assertThat(DateRange.ofEpochDays(20, 25).hasOverlapWithAnotherDateRange(dateRange)).isFalse();
+        assertThat(DateRange.ofEpochDays(5, 10).hasOverlapWithAnotherDateRange(dateRange)).isFalse();
+    }
+
+    @Test
+    void jsonRoundTrip() throws Exception {
+        DateRange dateRange = new DateRange(LocalDate.parse("2025-03-01"), LocalDate.parse("2025-03-05"));
+
+        String json = objectMapper.writeValueAsString(dateRange);
+        DateRange readDateRange = objectMapper.readValue(json, DateRange.class);
+
+        assertThat(json).contains("\"startDate\":\"2025-03-01\"").contains("\"endDate\":\"2025-03-05\"");
+        assertThat(readDateRange.isIdenticalToAnotherDateRange(dateRange)).isTrue();
+    }
+
+    @Test
+    void jsonWithEndDateBeforeStartDateIsRejected() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"startDate\":\"2025-03-05\",\"endDate\":\"2025-03-01\"}", DateRange.class))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
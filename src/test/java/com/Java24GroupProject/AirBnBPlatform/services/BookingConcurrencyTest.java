@@ -0,0 +1,259 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ConflictException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//concurrent bookings and listing updates on the same listing must never give the same dates to two bookings
+class BookingConcurrencyTest extends MongoIntegrationTest {
+    private static final int NUMBER_OF_GUESTS = 20;
+    private static final DateRange AVAILABLE_DATES = new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"));
+    //stress tests: thousands of requests for random, mostly overlapping, dates of a few listings
+    private static final int STRESS_REQUESTS = 2000;
+    private static final int STRESS_LISTINGS = 4;
+    private static final int STRESS_GUESTS = 50;
+    private static final DateRange STRESS_AVAILABLE_DATES = new DateRange(LocalDate.parse("2030-01-01"), LocalDate.parse("2030-12-31"));
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void exactlyOneOfConcurrentBookingsOfTheSameDatesSucceeds() throws Exception {
+        User host = createUser("host");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+        List<User> guests = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_GUESTS; i++) {
+            guests.add(createUser("guest" + i));
+        }
+
+        //all guests try to book the same dates at the same time
+        List<Callable<Object>> bookings = new ArrayList<>();
+        for (User guest : guests) {
+            bookings.add(() -> runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15"))));
+        }
+        List<Object> results = runConcurrently(bookings);
+
+        assertThat(results).filteredOn(result -> !(result instanceof Exception)).hasSize(1);
+        assertThat(results).filteredOn(result -> result instanceof Exception)
+                .allMatch(result -> result instanceof IllegalArgumentException || result instanceof ConflictException);
+        assertThat(bookingRepository.findByListingId(listing.getId())).hasSize(1);
+        assertThat(listingRepository.findById(listing.getId()).orElseThrow().isAvailable(
+                new DateRange(LocalDate.parse("2030-06-10"), LocalDate.parse("2030-06-15")))).isFalse();
+    }
+
+    @Test
+    void concurrentBookingsOfDifferentDatesAllSucceed() throws Exception {
+        User host = createUser("host");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+
+        List<Callable<Object>> bookings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            User guest = createUser("guest" + i);
+            LocalDate startDate = LocalDate.parse("2030-06-01").plusDays(2L * i);
+            bookings.add(() -> runAs(guest, () -> bookingService.createBooking(
+                    bookingRequest(listing, startDate.toString(), startDate.plusDays(2).toString()))));
+        }
+        List<Object> results = runConcurrently(bookings);
+
+        assertThat(results).noneMatch(result -> result instanceof Exception);
+        Listing updatedListing = listingRepository.findById(listing.getId()).orElseThrow();
+        assertThat(updatedListing.getAvailableDates()).hasSize(1);
+        assertThat(updatedListing.getAvailableDates().get(0).getStartDate()).isEqualTo("2030-06-21");
+    }
+
+    @Test
+    void hostUpdateCannotMakeBookedDatesAvailable() {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+        runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15")));
+
+        //the host sends the available dates read before the booking was made
+        assertThatThrownBy(() -> runAs(host, () -> listingService.updateListing(listing.getId(), listingRequest(List.of(AVAILABLE_DATES)))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(listingRepository.findById(listing.getId()).orElseThrow().isAvailable(
+                new DateRange(LocalDate.parse("2030-06-10"), LocalDate.parse("2030-06-15")))).isFalse();
+    }
+
+    @Test
+    void concurrentHostUpdatesAndBookingsNeverDoubleBook() throws Exception {
+        User host = createUser("host");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+
+        //hosts keep setting the original available dates while guests book the same dates
+        List<Callable<Object>> requests = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_GUESTS; i++) {
+            User guest = createUser("guest" + i);
+            requests.add(() -> runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15"))));
+            requests.add(() -> runAs(host, () -> listingService.updateListing(listing.getId(), listingRequest(List.of(AVAILABLE_DATES)))));
+        }
+        runConcurrently(requests);
+
+        List<Booking> bookings = bookingRepository.findByListingId(listing.getId());
+        assertThat(bookings).hasSize(1);
+        Listing updatedListing = listingRepository.findById(listing.getId()).orElseThrow();
+        assertThat(updatedListing.getAvailableDates())
+                .noneMatch(dateRange -> dateRange.hasOverlapWithAnotherDateRange(bookings.get(0).getBookingDates()));
+    }
+
+
+    @Test
+    void thousandsOfConcurrentBookingsNeverDoubleBook() throws Exception {
+        User host = createUser("host");
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < STRESS_LISTINGS; i++) {
+            listings.add(createListing(host, List.of(STRESS_AVAILABLE_DATES)));
+        }
+        List<User> guests = new ArrayList<>();
+        for (int i = 0; i < STRESS_GUESTS; i++) {
+            guests.add(createUser("guest" + i));
+        }
+
+        Random random = new Random(42);
+        List<Callable<Object>> bookings = new ArrayList<>();
+        for (int i = 0; i < STRESS_REQUESTS; i++) {
+            User guest = guests.get(i % STRESS_GUESTS);
+            Listing listing = listings.get(random.nextInt(STRESS_LISTINGS));
+            DateRange bookingDates = randomStressDates(random);
+            bookings.add(() -> runAs(guest, () -> bookingService.createBooking(
+                    bookingRequest(listing, bookingDates.getStartDate().toString(), bookingDates.getEndDate().toString()))));
+        }
+        List<Object> results = runConcurrently(bookings);
+
+        assertThat(results).filteredOn(result -> result instanceof Exception)
+                .allMatch(result -> result instanceof IllegalArgumentException || result instanceof ConflictException);
+        long successfulBookings = results.stream().filter(result -> !(result instanceof Exception)).count();
+        assertThat(successfulBookings).isPositive();
+
+        long savedBookings = 0;
+        for (Listing listing : listings) {
+            List<DateRange> bookedDates = bookingRepository.findByListingId(listing.getId()).stream()
+                    .map(Booking::getBookingDates)
+                    .toList();
+            assertNoDoubleBooking(listingRepository.findById(listing.getId()).orElseThrow(), bookedDates);
+            savedBookings += bookedDates.size();
+        }
+        assertThat(savedBookings).isEqualTo(successfulBookings);
+    }
+
+    //models several application instances: the in-process listing lock is not taken, only the compare-and-set on the
+    //available dates in the database keeps concurrent reservations apart
+    @Test
+    void concurrentReservationsWithoutListingLockNeverDoubleBook() throws Exception {
+        User host = createUser("host");
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < STRESS_LISTINGS; i++) {
+            listings.add(createListing(host, List.of(STRESS_AVAILABLE_DATES)));
+        }
+
+        Random random = new Random(42);
+        List<Callable<Object>> reservations = new ArrayList<>();
+        for (int i = 0; i < STRESS_REQUESTS; i++) {
+            String listingId = listings.get(random.nextInt(STRESS_LISTINGS)).getId();
+            DateRange bookingDates = randomStressDates(random);
+            reservations.add(() -> reserveWithoutLock(listingId, bookingDates) ? Map.entry(listingId, bookingDates) : null);
+        }
+        List<Object> results = runConcurrently(reservations);
+
+        assertThat(results).noneMatch(result -> result instanceof Exception);
+        Map<String, List<DateRange>> reservedDates = new HashMap<>();
+        for (Object result : results) {
+            if (result instanceof Map.Entry<?, ?> reservation) {
+                reservedDates.computeIfAbsent((String) reservation.getKey(), listingId -> new ArrayList<>())
+                        .add((DateRange) reservation.getValue());
+            }
+        }
+        assertThat(reservedDates).isNotEmpty();
+        for (Listing listing : listings) {
+            assertNoDoubleBooking(listingRepository.findById(listing.getId()).orElseThrow(),
+                    reservedDates.getOrDefault(listing.getId(), List.of()));
+        }
+    }
+
+    //read, change and compare-and-set the available dates until the update is not overtaken by another one,
+    //false if the dates are not available
+    private boolean reserveWithoutLock(String listingId, DateRange bookingDates) {
+        while (true) {
+            Listing listing = listingRepository.findById(listingId).orElseThrow();
+            List<DateRange> currentAvailableDates = new ArrayList<>(listing.getAvailableDates());
+            if (!listing.isAvailable(bookingDates)) {
+                return false;
+            }
+            listing.removeAvailableDateRange(bookingDates);
+            if (listingRepository.updateAvailableDatesIfUnchanged(listingId, currentAvailableDates, listing.getAvailableDates(), LocalDateTime.now())) {
+                return true;
+            }
+        }
+    }
+
+    //no two bookings share a night, no booked night is still available, and every night is either booked or available
+    private static void assertNoDoubleBooking(Listing listing, List<DateRange> bookedDates) {
+        for (int i = 0; i < bookedDates.size(); i++) {
+            for (int j = i + 1; j < bookedDates.size(); j++) {
+                assertThat(bookedDates.get(i).hasOverlapWithAnotherDateRange(bookedDates.get(j)))
+                        .as("%s overlaps %s", bookedDates.get(i), bookedDates.get(j)).isFalse();
+            }
+        }
+        for (DateRange booked : bookedDates) {
+            assertThat(listing.getAvailableDates()).noneMatch(available -> available.hasOverlapWithAnotherDateRange(booked));
+        }
+        int bookedNights = bookedDates.stream().mapToInt(DateRange::numberOfNights).sum();
+        int availableNights = listing.getAvailableDates().stream().mapToInt(DateRange::numberOfNights).sum();
+        assertThat(bookedNights + availableNights).isEqualTo(STRESS_AVAILABLE_DATES.numberOfNights());
+    }
+
+    //1-7 nights, starting at a random day of STRESS_AVAILABLE_DATES
+    private static DateRange randomStressDates(Random random) {
+        LocalDate startDate = STRESS_AVAILABLE_DATES.getStartDate().plusDays(random.nextInt(STRESS_AVAILABLE_DATES.numberOfNights() - 7));
+        return new DateRange(startDate, startDate.plusDays(1 + random.nextInt(7)));
+    }
+
+    private static BookingRequest bookingRequest(Listing listing, String startDate, String endDate) {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setListingId(listing.getId());
+        bookingRequest.setStartDate(startDate);
+        bookingRequest.setEndDate(endDate);
+        bookingRequest.setNumberOfGuests(2);
+        return bookingRequest;
+    }
+
+    private static ListingRequest listingRequest(List<DateRange> availableDates) {
+        ListingRequest listingRequest = new ListingRequest();
+        listingRequest.setTitle("Updated listing");
+        listingRequest.setDescription("description");
+        listingRequest.setPricePerNight(new BigDecimal("100"));
+        listingRequest.setCapacity(4);
+        listingRequest.setLocation("Stockholm");
+        listingRequest.setAvailableDates(availableDates);
+        return listingRequest;
+    }
+}
@@ -0,0 +1,96 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
+import com.Java24GroupProject.AirBnBPlatform.MongoCommandCounter;
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the booking requests read the listing and users once, however many bookings there are (no N+1 queries)
+class BookingQueryCountTest extends MongoIntegrationTest {
+    private static final DateRange AVAILABLE_DATES = new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"));
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void createBookingReadsListingAndUserOnce() {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+
+        List<String> commands = mongoCommandCounter.record(() ->
+                runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15")))).commands();
+
+        //current user (from the login), listing, reservation of the dates, new booking
+        assertThat(commands).containsExactlyInAnyOrder("find users", "find listings", "update listings", "insert bookings");
+    }
+
+    @Test
+    void updateBookingReadsBookingAndListingOnce() {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+        BookingResponse booking = runAs(guest, () -> bookingService.createBooking(bookingRequest(listing, "2030-06-10", "2030-06-15")));
+
+        List<String> commands = mongoCommandCounter.record(() ->
+                runAs(guest, () -> bookingService.updateBooking(booking.getId(), bookingRequest(listing, "2030-06-12", "2030-06-16")))).commands();
+
+        assertThat(commands).containsExactlyInAnyOrder("find bookings", "find users", "find listings", "update listings", "update bookings");
+    }
+
+    @Test
+    void listingBookingsReadUsersWithOneQuery() {
+        User host = createUser("host");
+        Listing listing = createListing(host, List.of(AVAILABLE_DATES));
+        for (int i = 0; i < 10; i++) {
+            saveBooking(listing, createUser("guest" + i), LocalDate.parse("2030-06-01").plusDays(2L * i));
+        }
+
+        MongoCommandCounter.Recording<PageResponse<BookingResponse>> recording = mongoCommandCounter.record(() ->
+                runAs(host, () -> bookingService.getBookingsByListingId(listing.getId(), PageRequest.of(0, 20), null)));
+
+        assertThat(recording.result().getContent()).hasSize(10);
+        //listing, current user (from the login), page of bookings, users of all bookings on the page
+        assertThat(recording.commands()).containsExactlyInAnyOrder("find listings", "find users", "find bookings", "find users");
+    }
+
+    private void saveBooking(Listing listing, User user, LocalDate startDate) {
+        Booking booking = new Booking();
+        booking.setListingId(listing.getId());
+        booking.setListingTitle(listing.getTitle());
+        booking.setUserId(user.getId());
+        booking.setBookingDates(new DateRange(startDate, startDate.plusDays(2)));
+        booking.setNumberOfGuests(2);
+        booking.setTotalPrice(new BigDecimal("200"));
+        booking.setBookingStatus(BookingStatus.PENDING);
+        bookingRepository.save(booking);
+    }
+
+    private static BookingRequest bookingRequest(Listing listing, String startDate, String endDate) {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setListingId(listing.getId());
+        bookingRequest.setStartDate(startDate);
+        bookingRequest.setEndDate(endDate);
+        bookingRequest.setNumberOfGuests(2);
+        return bookingRequest;
+    }
+}
@@ -0,0 +1,106 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.config.SecurityConfiguration;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.BoundedPasswordEncoder;
+import com.Java24GroupProject.AirBnBPlatform.util.UserPrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//logins through the same DaoAuthenticationProvider setup that Spring Security uses, with a low bcrypt strength so the test is fast
+class CustomUserDetailsServiceTest {
+    private static final int STRENGTH = 5;
+    private static final String PASSWORD = "Password1!";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CustomUserDetailsService userDetailsService =
+            new CustomUserDetailsService(userRepository, new UserPrincipalCache(100, Duration.ofMinutes(1)));
+    private final BoundedPasswordEncoder passwordEncoder = new SecurityConfiguration(null).passwordEncoder("bcrypt", STRENGTH, 1, 10);
+    private final DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService);
+
+        user = new User();
+        user.setUsername("guest");
+        user.setRoles(Set.of(Role.USER));
+        when(userRepository.findByUsername("guest")).thenAnswer(invocation -> Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void shutdown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void loginWithLowerBcryptCostStoresNewHash() {
+        user.setPassword("{bcrypt}" + new BCryptPasswordEncoder(STRENGTH - 1).encode(PASSWORD));
+
+        login();
+
+        verify(userRepository).save(user);
+        assertThat(user.getPassword()).startsWith("{bcrypt}$2a$0" + STRENGTH + "$");
+        assertThat(passwordEncoder.matches(PASSWORD, user.getPassword())).isTrue();
+    }
+
+    @Test
+    void loginWithHashWithoutPrefixStoresNewHash() {
+        user.setPassword(new BCryptPasswordEncoder(STRENGTH).encode(PASSWORD));
+
+        login();
+
+        verify(userRepository).save(user);
+        assertThat(user.getPassword()).startsWith("{bcrypt}$2a$0" + STRENGTH + "$");
+    }
+
+    @Test
+    void loginWithCurrentBcryptCostKeepsHash() {
+        String hash = "{bcrypt}" + new BCryptPasswordEncoder(STRENGTH).encode(PASSWORD);
+        user.setPassword(hash);
+
+        login();
+
+        verify(userRepository, never()).save(any(User.class));
+        assertThat(user.getPassword()).isEqualTo(hash);
+    }
+
+    @Test
+    void loginWithHigherBcryptCostStoresNewHash() {
+        user.setPassword("{bcrypt}" + new BCryptPasswordEncoder(STRENGTH + 1).encode(PASSWORD));
+
+        login();
+
+        verify(userRepository).save(user);
+        assertThat(user.getPassword()).startsWith("{bcrypt}$2a$0" + STRENGTH + "$");
+        assertThat(passwordEncoder.matches(PASSWORD, user.getPassword())).isTrue();
+    }
+
+    private void login() {
+        Authentication authentication = authenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken("guest", PASSWORD));
+        assertThat(authentication.isAuthenticated()).isTrue();
+    }
+}
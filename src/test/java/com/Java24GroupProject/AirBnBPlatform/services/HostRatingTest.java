@@ -0,0 +1,112 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the host ratings (sum and count of the reviews of all listings of the host) follow review creates, review deletes and listing deletes
+class HostRatingTest extends MongoIntegrationTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private HostRatingRepository hostRatingRepository;
+
+    @Test
+    void createdReviewsAreAddedToHostRatings() {
+        User host = createUser("host");
+        Listing firstListing = createListing(host, availableDates());
+        Listing secondListing = createListing(host, availableDates());
+
+        createReview(firstListing, createUser("guest1"), 4.0);
+        createReview(firstListing, createUser("guest2"), 2.0);
+        createReview(secondListing, createUser("guest3"), 5.0);
+
+        assertHostRatings(host, 11.0, 3);
+    }
+
+    @Test
+    void deletedReviewIsSubtractedFromHostRatings() {
+        User host = createUser("host");
+        Listing listing = createListing(host, availableDates());
+        User guest = createUser("guest1");
+        ReviewResponse deleted = createReview(listing, guest, 1.0);
+        createReview(listing, createUser("guest2"), 4.0);
+
+        runAs(guest, () -> reviewService.deleteReview(deleted.getId()));
+
+        assertHostRatings(host, 4.0, 1);
+    }
+
+    @Test
+    void deletedListingSubtractsItsReviewsFromHostRatings() {
+        User host = createUser("host");
+        Listing deletedListing = createListing(host, availableDates());
+        Listing keptListing = createListing(host, availableDates());
+        createReview(deletedListing, createUser("guest1"), 3.0);
+        User guest = createUser("guest2");
+        ReviewResponse deletedReview = createReview(deletedListing, guest, 5.0);
+        createReview(keptListing, createUser("guest3"), 2.0);
+        //a review deleted before the listing is only subtracted once
+        runAs(guest, () -> reviewService.deleteReview(deletedReview.getId()));
+
+        runAs(host, () -> listingService.deleteListing(deletedListing.getId()));
+
+        assertHostRatings(host, 2.0, 1);
+        assertThat(reviewRepository.findAll()).hasSize(1);
+    }
+
+    //created through ReviewService.createReview, which requires a booking of the guest that has ended
+    private ReviewResponse createReview(Listing listing, User guest, double rating) {
+        Booking booking = new Booking();
+        booking.setListingId(listing.getId());
+        booking.setUserId(guest.getId());
+        booking.setBookingDates(new DateRange(LocalDate.now().minusDays(10), LocalDate.now().minusDays(5)));
+        booking.setNumberOfGuests(1);
+        booking.setTotalPrice(new BigDecimal("500"));
+        booking.setBookingStatus(BookingStatus.ACCEPTED);
+        bookingRepository.save(booking);
+
+        ReviewRequest reviewRequest = new ReviewRequest();
+        reviewRequest.setListingId(listing.getId());
+        reviewRequest.setRating(rating);
+        return runAs(guest, () -> reviewService.createReview(reviewRequest));
+    }
+
+    private static List<DateRange> availableDates() {
+        return List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30")));
+    }
+
+    private void assertHostRatings(User host, double ratingSum, int reviewCount) {
+        HostRating hostRating = hostRatingRepository.findById(host.getId()).orElseThrow();
+        assertThat(hostRating.getRatingSum()).isEqualTo(ratingSum);
+        assertThat(hostRating.getReviewCount()).isEqualTo(reviewCount);
+    }
+}
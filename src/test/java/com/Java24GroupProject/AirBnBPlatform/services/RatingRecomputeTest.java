@@ -0,0 +1,88 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingHistogram;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.RatingScore;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the ratings of all listings are recomputed from the reviews by an aggregation in MongoDB (ListingRepositoryCustomImpl.recomputeRatings)
+class RatingRecomputeTest extends MongoIntegrationTest {
+    private static final List<DateRange> AVAILABLE_DATES = List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30")));
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private HostRatingRepository hostRatingRepository;
+
+    @Autowired
+    private RatingScore ratingScore;
+
+    @Test
+    void ratingsAreRecomputedFromReviews() {
+        User host = createUser("host");
+        Listing reviewedListing = createListing(host, AVAILABLE_DATES);
+        Listing otherListing = createListing(host, AVAILABLE_DATES);
+        //2.5 is counted as three stars (rounded half up, as RatingHistogram.fieldFor), a review without rating is not counted
+        insertReviews(reviewedListing, 5.0, 4.0, 2.5, 1.0, null);
+        insertReviews(otherListing, 4.0);
+
+        int listingCount = reviewService.recomputeListingRatings();
+
+        assertThat(listingCount).isEqualTo(2);
+        Listing listing = listingRepository.findById(reviewedListing.getId()).orElseThrow();
+        assertThat(listing.getRatingSum()).isEqualTo(12.5);
+        assertThat(listing.getRatingCount()).isEqualTo(4);
+        assertThat(listing.getAverageRating()).isEqualTo(12.5 / 4);
+        assertThat(listing.getBayesianRating()).isEqualTo(ratingScore.bayesianRating(12.5, 4));
+        RatingHistogram histogram = listing.getRatingHistogram();
+        assertThat(List.of(histogram.getOneStar(), histogram.getTwoStars(), histogram.getThreeStars(), histogram.getFourStars(), histogram.getFiveStars()))
+                .containsExactly(1, 0, 1, 1, 1);
+
+        HostRating hostRating = hostRatingRepository.findById(host.getId()).orElseThrow();
+        assertThat(hostRating.getRatingSum()).isEqualTo(16.5);
+        assertThat(hostRating.getReviewCount()).isEqualTo(5);
+    }
+
+    @Test
+    void listingsWithoutReviewsAreReset() {
+        User host = createUser("host");
+        Listing listing = createListing(host, AVAILABLE_DATES);
+        //ratings left over from reviews that no longer exist
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(listing.getId())), new Update()
+                .set("ratingSum", 9.0).set("ratingCount", 2).set("averageRating", 4.5).set("ratingHistogram.fourStars", 1), Listing.class);
+
+        reviewService.recomputeListingRatings();
+
+        Listing updatedListing = listingRepository.findById(listing.getId()).orElseThrow();
+        assertThat(updatedListing.getRatingSum()).isEqualTo(0.0);
+        assertThat(updatedListing.getRatingCount()).isZero();
+        assertThat(updatedListing.getAverageRating()).isEqualTo(0.0);
+        assertThat(updatedListing.getBayesianRating()).isEqualTo(ratingScore.getPriorMean());
+        assertThat(updatedListing.getRatingHistogram().getFourStars()).isZero();
+        assertThat(updatedListing.getTitle()).isEqualTo(listing.getTitle());
+    }
+
+    //inserted as documents, only the fields read by the recompute are set
+    private void insertReviews(Listing listing, Double... ratings) {
+        for (Double rating : ratings) {
+            mongoTemplate.getCollection("reviews").insertOne(new Document("listingId", new ObjectId(listing.getId())).append("rating", rating));
+        }
+    }
+}
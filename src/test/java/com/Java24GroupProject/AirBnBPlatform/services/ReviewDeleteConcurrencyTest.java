@@ -0,0 +1,97 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.models.HostRating;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//a review deleted by concurrent or retried requests must only be subtracted once from the listing and host ratings
+class ReviewDeleteConcurrencyTest extends MongoIntegrationTest {
+    private static final int NUMBER_OF_REQUESTS = 10;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private HostRatingRepository hostRatingRepository;
+
+    @Test
+    void concurrentDeletesOfTheSameReviewSubtractItsRatingOnce() throws Exception {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"))));
+        Review kept = addReview(listing, guest, 4.0);
+        Review deleted = addReview(listing, guest, 2.0);
+
+        List<Callable<Object>> deletes = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            deletes.add(() -> {
+                runAs(guest, () -> reviewService.deleteReview(deleted.getId()));
+                return "deleted";
+            });
+        }
+        List<Object> results = runConcurrently(deletes);
+
+        assertThat(results).filteredOn("deleted"::equals).hasSize(1);
+        assertThat(results).filteredOn(result -> !"deleted".equals(result))
+                .allMatch(result -> result instanceof ResourceNotFoundException);
+        assertRatings(listing, host, 4.0, 1);
+        assertThat(reviewRepository.findById(kept.getId())).isPresent();
+    }
+
+    @Test
+    void retriedDeleteDoesNotChangeRatings() {
+        User host = createUser("host");
+        User guest = createUser("guest");
+        Listing listing = createListing(host, List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"))));
+        addReview(listing, guest, 5.0);
+        Review review = addReview(listing, guest, 3.0);
+
+        runAs(guest, () -> reviewService.deleteReview(review.getId()));
+        assertThatThrownBy(() -> runAs(guest, () -> reviewService.deleteReview(review.getId())))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        assertRatings(listing, host, 5.0, 1);
+    }
+
+    //saved and added to the ratings the same way as ReviewService.createReview (which requires a past booking)
+    private Review addReview(Listing listing, User guest, double rating) {
+        Review review = new Review();
+        review.setListingId(listing.getId());
+        review.setUserId(guest.getId());
+        review.setUsername(guest.getUsername());
+        review.setRating(rating);
+        review.setEndDate(LocalDate.parse("2025-01-10"));
+        Review savedReview = reviewRepository.save(review);
+        listingRepository.addRating(listing.getId(), rating);
+        hostRatingRepository.changeRatings(listing.getHostId(), rating, 1);
+        return savedReview;
+    }
+
+    private void assertRatings(Listing listing, User host, double ratingSum, int ratingCount) {
+        Listing updatedListing = listingRepository.findById(listing.getId()).orElseThrow();
+        assertThat(updatedListing.getRatingSum()).isEqualTo(ratingSum);
+        assertThat(updatedListing.getRatingCount()).isEqualTo(ratingCount);
+        HostRating hostRating = hostRatingRepository.findById(host.getId()).orElseThrow();
+        assertThat(hostRating.getRatingSum()).isEqualTo(ratingSum);
+        assertThat(hostRating.getReviewCount()).isEqualTo(ratingCount);
+    }
+}
@@ -0,0 +1,110 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PageResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
+import com.Java24GroupProject.AirBnBPlatform.MongoIntegrationTest;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//the review feed pages newest first (createdAt descending, then id ascending), reviews with the same createdAt must not be skipped or repeated
+//between pages
+class ReviewFeedPagingTest extends MongoIntegrationTest {
+    //several reviews per timestamp, so page boundaries fall inside groups of reviews with the same createdAt
+    private static final Instant[] CREATED_AT = {
+            Instant.parse("2025-01-01T10:00:00.000Z"),
+            Instant.parse("2025-01-02T10:00:00.000Z"),
+            Instant.parse("2025-01-02T10:00:00.000Z"),
+            Instant.parse("2025-01-02T10:00:00.000Z"),
+            Instant.parse("2025-01-02T10:00:00.000Z"),
+            Instant.parse("2025-01-03T10:00:00.500Z"),
+            Instant.parse("2025-01-03T10:00:00.500Z"),
+            Instant.parse("2025-01-03T10:00:00.500Z"),
+            Instant.parse("2025-01-04T10:00:00.000Z"),
+            Instant.parse("2025-01-04T10:00:00.000Z"),
+            Instant.parse("2025-01-05T10:00:00.000Z")};
+
+    @Autowired
+    private ReviewService reviewService;
+
+    private final ObjectId listingId = new ObjectId();
+    private final List<ReviewData> reviews = new ArrayList<>();
+
+    private record ReviewData(ObjectId id, Instant createdAt, double rating) {
+    }
+
+    @BeforeEach
+    void insertReviews() {
+        //inserted as documents, so createdAt is not set by auditing, and in random id order compared to createdAt
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < CREATED_AT.length; i++) {
+            ReviewData review = new ReviewData(new ObjectId(), CREATED_AT[(i * 7) % CREATED_AT.length], i % 5 + 1);
+            reviews.add(review);
+            documents.add(new Document("_id", review.id()).append("listingId", listingId).append("userId", new ObjectId())
+                    .append("username", "guest" + i).append("rating", review.rating()).append("endDate", new Date())
+                    .append("createdAt", Date.from(review.createdAt())));
+        }
+        //reviews of another listing with the same timestamps must not show up
+        documents.add(new Document("listingId", new ObjectId()).append("rating", 5.0).append("createdAt", Date.from(CREATED_AT[2])));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class)).insertMany(documents);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 11, 20})
+    void pagesHaveNoGapsOrDuplicates(int pageSize) {
+        assertThat(readFeed(pageSize, null)).containsExactlyElementsOf(expectedIds(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void pagesWithMinRatingHaveNoGapsOrDuplicates(int pageSize) {
+        assertThat(readFeed(pageSize, 3.0)).containsExactlyElementsOf(expectedIds(3.0));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        PageResponse<ReviewResponse> page = reviewService.getReviewFeedByListing(listingId.toHexString(), null, CREATED_AT.length, null);
+
+        assertThat(page.getContent()).hasSize(CREATED_AT.length);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    //read all pages of the feed by following nextCursor
+    private List<String> readFeed(int pageSize, Double minRating) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PageResponse<ReviewResponse> page = reviewService.getReviewFeedByListing(listingId.toHexString(), cursor, pageSize, minRating);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(pageSize);
+            page.getContent().forEach(review -> ids.add(review.getId()));
+            assertThat(page.isHasNext()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            assertThat(++pages).isLessThanOrEqualTo(CREATED_AT.length + 1);
+        } while (cursor != null);
+        return ids;
+    }
+
+    //ids of the reviews with rating >= minRating, newest first and then lowest id first
+    private List<String> expectedIds(double minRating) {
+        return reviews.stream()
+                .filter(review -> review.rating() >= minRating)
+                .sorted(Comparator.comparing(ReviewData::createdAt).reversed().thenComparing(ReviewData::id))
+                .map(review -> review.id().toHexString())
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final CountDownLatch finishHashing = new CountDownLatch(1);
+    //hashes once finishHashing is counted down, and records the thread it ran on
+    private final BlockingPasswordEncoder passwordEncoder = new BlockingPasswordEncoder();
+    private final BoundedPasswordEncoder boundedPasswordEncoder = new BoundedPasswordEncoder(passwordEncoder, 1, 1);
+
+    @AfterEach
+    void shutdown() {
+        finishHashing.countDown();
+        boundedPasswordEncoder.shutdown();
+    }
+
+    @Test
+    void hashingRunsInPool() {
+        finishHashing.countDown();
+
+        assertThat(boundedPasswordEncoder.encode("Password1!")).isEqualTo("hash:Password1!");
+        assertThat(passwordEncoder.threadName).startsWith("password-hashing-");
+        assertThat(boundedPasswordEncoder.matches("Password1!", "hash:Password1!")).isTrue();
+        assertThat(boundedPasswordEncoder.matches("Password2!", "hash:Password1!")).isFalse();
+    }
+
+    @Test
+    void hashingIsRejectedWhenPoolAndQueueAreFull() throws Exception {
+        //one password is hashed (threads = 1) and one waits in the queue (queueCapacity = 1)
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("running"));
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = new CompletableFuture<>();
+        Thread queuedThread = new Thread(() -> queued.complete(boundedPasswordEncoder.matches("queued", "hash:queued")));
+        queuedThread.start();
+        while (queuedThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        //rejected at once, without waiting
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("rejected")).isInstanceOf(ServiceUnavailableException.class);
+        assertThatThrownBy(() -> boundedPasswordEncoder.matches("rejected", "hash:rejected")).isInstanceOf(ServiceUnavailableException.class);
+        //does not hash, so it is not limited by the pool
+        assertThat(boundedPasswordEncoder.upgradeEncoding("hash:rejected")).isFalse();
+
+        finishHashing.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:running");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(boundedPasswordEncoder.encode("accepted")).isEqualTo("hash:accepted");
+    }
+
+    @Test
+    void errorFromPasswordEncoderIsPassedOn() {
+        finishHashing.countDown();
+
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+        private volatile String threadName;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (rawPassword == null) {
+                throw new IllegalArgumentException("rawPassword cannot be null");
+            }
+            hash();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            hash();
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+
+        private void hash() {
+            threadName = Thread.currentThread().getName();
+            hashing.countDown();
+            try {
+                finishHashing.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
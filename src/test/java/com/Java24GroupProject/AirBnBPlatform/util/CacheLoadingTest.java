@@ -0,0 +1,77 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheLoadingTest {
+    private final AsyncCache<String, String> cache = Caffeine.newBuilder().buildAsync();
+
+    @Test
+    void valueIsLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(CacheLoading.get(cache, "key", key -> key + loads.incrementAndGet())).isEqualTo("key1");
+        assertThat(CacheLoading.get(cache, "key", key -> key + loads.incrementAndGet())).isEqualTo("key1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void runtimeExceptionIsPassedOnAndNotCached() {
+        assertThatThrownBy(() -> CacheLoading.get(cache, "key", key -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(CacheLoading.get(cache, "key", key -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void errorIsPassedOnToWaitingRequests() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CompletableFuture<String> loader = CompletableFuture.supplyAsync(() -> CacheLoading.get(cache, "key", key -> {
+            loading.countDown();
+            await(fail);
+            throw new StackOverflowError();
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //waits for the value loaded by the first request
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        Thread waiterThread = new Thread(() -> {
+            try {
+                waiter.complete(CacheLoading.get(cache, "key", key -> "not used"));
+            } catch (Throwable e) {
+                waiter.completeExceptionally(e);
+            }
+        });
+        waiterThread.start();
+        while (waiterThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        fail.countDown();
+
+        assertThatThrownBy(() -> loader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(CacheLoading.get(cache, "key", key -> "loaded")).isEqualTo("loaded");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
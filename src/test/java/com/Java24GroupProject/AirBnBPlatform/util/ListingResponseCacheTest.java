@@ -0,0 +1,286 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
+import com.Java24GroupProject.AirBnBPlatform.controllers.ListingController;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.services.ListingService;
+import com.Java24GroupProject.AirBnBPlatform.services.ReviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//GET /listings/{id} through ListingService with the repositories mocked, a listing is served from the cache until a listing
+//or review write removes it, clients that send the ETag of the current version get 304 Not Modified
+class ListingResponseCacheTest {
+    private static final String LISTING_ID = "65a000000000000000000001";
+
+    //with the defaults Spring Boot uses (ISO dates)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ListingResponseCache listingResponseCache = new ListingResponseCache(objectMapper, 1_000_000, Duration.ofMinutes(10));
+    private final ListingRepository listingRepository = mock(ListingRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final HostRatingRepository hostRatingRepository = mock(HostRatingRepository.class);
+    private final ListingLockManager listingLockManager = new ListingLockManager();
+    private final ListingService listingService = new ListingService(listingRepository, userRepository, bookingRepository,
+            reviewRepository, hostRatingRepository, listingLockManager, mock(ListingSearchIndex.class), listingResponseCache,
+            new RatingScore(3.0, 10));
+    private final ReviewService reviewService = new ReviewService(reviewRepository, bookingRepository, listingRepository,
+            userRepository, hostRatingRepository, listingResponseCache, listingLockManager);
+    private User host;
+    private User guest;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        host = user("65b000000000000000000001", "host");
+        guest = user("65b000000000000000000002", "guest");
+        listing = new Listing();
+        listing.setId(LISTING_ID);
+        listing.setTitle("Cabin");
+        listing.setHostId(host.getId());
+        listing.setHostName(host.getUsername());
+        listing.setPricePerNight(new BigDecimal("100"));
+        listing.setCapacity(4);
+        listing.setLocation("Stockholm");
+        listing.setAvailableDates(List.of(new DateRange(LocalDate.parse("2030-06-01"), LocalDate.parse("2030-06-30"))));
+        listing.setRatingSum(0.0);
+        listing.setRatingCount(0);
+        listing.setAverageRating(0.0);
+        listing.setBayesianRating(0.0);
+
+        //the repository always returns the current state of the listing
+        when(listingRepository.findById(LISTING_ID)).thenAnswer(invocation -> Optional.ofNullable(listing));
+        when(listingRepository.findHostIdById(LISTING_ID)).thenAnswer(invocation -> Optional.ofNullable(listing));
+        when(userRepository.findByUsername("host")).thenReturn(Optional.of(host));
+        when(userRepository.findByUsername("guest")).thenReturn(Optional.of(guest));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void listingIsLoadedOnceAndServedFromCache() {
+        ListingResponseCache.CachedListing first = listingService.getListingById(LISTING_ID);
+        ListingResponseCache.CachedListing second = listingService.getListingById(LISTING_ID);
+
+        assertThat(second).isSameAs(first);
+        assertThat(json(second)).contains("\"title\":\"Cabin\"");
+        verify(listingRepository, times(1)).findById(LISTING_ID);
+        assertThat(listingResponseCache.getStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loadErrorIsPassedOnAndNotCached() {
+        Listing existingListing = listing;
+        listing = null;
+        assertThatThrownBy(() -> listingService.getListingById(LISTING_ID)).isInstanceOf(ResourceNotFoundException.class);
+
+        listing = existingListing;
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"title\":\"Cabin\"");
+    }
+
+    @Test
+    void invalidatedListingIsLoadedAgain() {
+        listingService.getListingById(LISTING_ID);
+        listing.setTitle("Lake cabin");
+
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"title\":\"Cabin\"");
+        listingResponseCache.invalidate(LISTING_ID);
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"title\":\"Lake cabin\"");
+
+        listing.setTitle("Cottage");
+        listingResponseCache.invalidateAll();
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"title\":\"Cottage\"");
+    }
+
+    @Test
+    void listingUpdateInvalidatesListing() {
+        when(listingRepository.updateAvailableDatesIfUnchanged(eq(LISTING_ID), any(), any(), any())).thenReturn(true);
+        listingService.getListingById(LISTING_ID);
+
+        ListingRequest listingRequest = new ListingRequest();
+        listingRequest.setTitle("Lake cabin");
+        listingRequest.setPricePerNight(new BigDecimal("120"));
+        listingRequest.setCapacity(4);
+        listingRequest.setLocation("Stockholm");
+        listingRequest.setAvailableDates(List.of(new DateRange(LocalDate.parse("2030-07-01"), LocalDate.parse("2030-07-31"))));
+        login(host);
+        listingService.updateListing(LISTING_ID, listingRequest);
+
+        String json = json(listingService.getListingById(LISTING_ID));
+        assertThat(json).contains("\"title\":\"Lake cabin\"").contains("2030-07-01");
+    }
+
+    @Test
+    void listingDeleteInvalidatesListing() {
+        when(reviewRepository.removeByListingIdReturningRatings(LISTING_ID)).thenReturn(List.of());
+        listingService.getListingById(LISTING_ID);
+
+        login(host);
+        listingService.deleteListing(LISTING_ID);
+        listing = null;
+
+        assertThatThrownBy(() -> listingService.getListingById(LISTING_ID)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void reviewCreateAndDeleteInvalidateListing() {
+        //the rating count is changed in the database by the repository
+        doAnswer(invocation -> {
+            listing.setRatingCount(listing.getRatingCount() + 1);
+            return null;
+        }).when(listingRepository).addRating(eq(LISTING_ID), anyDouble());
+        doAnswer(invocation -> {
+            listing.setRatingCount(listing.getRatingCount() - 1);
+            return null;
+        }).when(listingRepository).removeRating(eq(LISTING_ID), anyDouble());
+        Booking booking = new Booking();
+        booking.setListingId(LISTING_ID);
+        booking.setUserId(guest.getId());
+        booking.setBookingDates(new DateRange(LocalDate.now().minusDays(10), LocalDate.now().minusDays(5)));
+        when(bookingRepository.findByUserIdAndListingId(guest.getId(), LISTING_ID)).thenReturn(Optional.of(booking));
+        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> {
+            Review review = invocation.getArgument(0);
+            review.setId("65c000000000000000000001");
+            return review;
+        });
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"ratingCount\":0");
+
+        ReviewRequest reviewRequest = new ReviewRequest();
+        reviewRequest.setListingId(LISTING_ID);
+        reviewRequest.setRating(4.0);
+        login(guest);
+        reviewService.createReview(reviewRequest);
+
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"ratingCount\":1");
+
+        Review review = new Review();
+        review.setId("65c000000000000000000001");
+        review.setListingId(LISTING_ID);
+        review.setUserId(guest.getId());
+        review.setRating(4.0);
+        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+        when(reviewRepository.removeById(anyString())).thenReturn(1L);
+        reviewService.deleteReview(review.getId());
+
+        assertThat(json(listingService.getListingById(LISTING_ID))).contains("\"ratingCount\":0");
+    }
+
+    @Test
+    void etagIsTheSameForTheSameListingAndChangesWithListing() {
+        String etag = listingService.getListingById(LISTING_ID).etag();
+        listingResponseCache.invalidate(LISTING_ID);
+
+        //strong ETag, also the same after the listing was loaded again (or by another app instance)
+        assertThat(etag).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+        assertThat(listingService.getListingById(LISTING_ID).etag()).isEqualTo(etag);
+
+        listing.setTitle("Lake cabin");
+        listingResponseCache.invalidate(LISTING_ID);
+        assertThat(listingService.getListingById(LISTING_ID).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void requestWithCurrentEtagGetsNotModified() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ListingController(listingService, objectMapper)).build();
+
+        MvcResult result = mockMvc.perform(get("/listings/{id}", LISTING_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.title").value("Cabin"))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo(listingService.getListingById(LISTING_ID).etag());
+
+        mockMvc.perform(get("/listings/{id}", LISTING_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        //a changed listing is sent again, with a new ETag
+        listing.setTitle("Lake cabin");
+        listingResponseCache.invalidate(LISTING_ID);
+        mockMvc.perform(get("/listings/{id}", LISTING_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.title").value("Lake cabin"));
+    }
+
+    private static String json(ListingResponseCache.CachedListing cachedListing) {
+        return new String(cachedListing.json(), StandardCharsets.UTF_8);
+    }
+
+    private static User user(String id, String username) {
+        User user = new User();
+        //users get their id when saved, there is no setter
+        ReflectionTestUtils.setField(user, "id", id);
+        user.setUsername(username);
+        user.setPassword("Password1!");
+        user.setRoles(Set.of(Role.USER));
+        return user;
+    }
+
+    private static void login(User user) {
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles("USER")
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+}
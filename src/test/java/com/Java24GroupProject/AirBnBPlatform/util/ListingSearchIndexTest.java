@@ -0,0 +1,220 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities.KITCHEN;
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities.PETS_ALLOWED;
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities.POOL;
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities.WIFI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ListingSearchIndexTest {
+    private static final Duration MAX_STALENESS = Duration.ofMinutes(5);
+
+    private final ListingRepository listingRepository = mock(ListingRepository.class);
+    private final Clock clock = mock(Clock.class);
+    private final ListingSearchIndex index = new ListingSearchIndex(listingRepository, MAX_STALENESS, clock);
+    private Instant now = Instant.parse("2025-01-01T12:00:00Z");
+
+    @BeforeEach
+    void buildIndex() {
+        when(clock.instant()).thenAnswer(invocation -> now);
+        when(listingRepository.streamSearchIndexFieldsBy()).thenReturn(Stream.of(
+                listing("a", "Stockholm", WIFI, KITCHEN),
+                listing("b", "Stockholm", WIFI),
+                listing("c", "Malmo", WIFI, KITCHEN, POOL),
+                listing("d", "Malmo"),
+                listing("e", "Stockholm", POOL, PETS_ALLOWED)));
+        index.rebuild();
+    }
+
+    @Test
+    void indexIsReadyAfterRebuild() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void noFilterMatchesAllListings() {
+        assertThat(ids(Set.of(), true, null)).containsExactly("a", "b", "c", "d", "e");
+        assertThat(ids(null, false, null)).containsExactly("a", "b", "c", "d", "e");
+    }
+
+    @Test
+    void matchAllUtilitiesIsIntersection() {
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("a", "b", "c");
+        assertThat(ids(EnumSet.of(WIFI, KITCHEN), true, null)).containsExactly("a", "c");
+        assertThat(ids(EnumSet.of(WIFI, KITCHEN, POOL), true, null)).containsExactly("c");
+        assertThat(ids(EnumSet.of(KITCHEN, PETS_ALLOWED), true, null)).isEmpty();
+    }
+
+    @Test
+    void matchAnyUtilityIsUnion() {
+        assertThat(ids(EnumSet.of(KITCHEN), false, null)).containsExactly("a", "c");
+        assertThat(ids(EnumSet.of(KITCHEN, PETS_ALLOWED), false, null)).containsExactly("a", "c", "e");
+        assertThat(ids(EnumSet.allOf(ListingUtilities.class), false, null)).containsExactly("a", "b", "c", "e");
+    }
+
+    @Test
+    void locationFiltersListings() {
+        assertThat(ids(Set.of(), true, "Stockholm")).containsExactly("a", "b", "e");
+        assertThat(ids(EnumSet.of(WIFI), true, "Malmo")).containsExactly("c");
+        assertThat(ids(EnumSet.of(WIFI, KITCHEN), true, "Stockholm")).containsExactly("a");
+        assertThat(ids(EnumSet.of(KITCHEN, POOL), false, "Stockholm")).containsExactly("a", "e");
+        assertThat(ids(EnumSet.of(WIFI), true, "Gothenburg")).isEmpty();
+        assertThat(ids(Set.of(), true, "Gothenburg")).isEmpty();
+    }
+
+    @Test
+    void queryDoesNotChangeTheIndex() {
+        ids(EnumSet.of(WIFI, KITCHEN), true, "Stockholm");
+        ids(EnumSet.of(KITCHEN, POOL), false, null);
+
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("a", "b", "c");
+        assertThat(ids(Set.of(), true, "Stockholm")).containsExactly("a", "b", "e");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void pagesWithOffsetAndAfterCursor() {
+        ListingSearchIndex.IdPage firstPage = index.findPage(EnumSet.of(WIFI), false, null, null, 0, 2);
+        assertThat(firstPage.ids()).containsExactly("a", "b");
+        assertThat(firstPage.hasNext()).isTrue();
+
+        ListingSearchIndex.IdPage secondPage = index.findPage(EnumSet.of(WIFI), false, null, null, 1, 2);
+        assertThat(secondPage.ids()).containsExactly("c");
+        assertThat(secondPage.hasNext()).isFalse();
+
+        ListingSearchIndex.IdPage afterPage = index.findPage(EnumSet.of(WIFI), false, null, "b", 0, 2);
+        assertThat(afterPage.ids()).containsExactly("c");
+        assertThat(afterPage.hasNext()).isFalse();
+
+        assertThat(index.findPage(EnumSet.of(WIFI), false, null, "unknown", 0, 2)).isNull();
+    }
+
+    @Test
+    void putAndRemoveUpdateTheBitmaps() {
+        index.put(listing("b", "Malmo", KITCHEN));
+        index.put(listing("f", "Gothenburg", WIFI));
+        index.remove("c");
+
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("a", "f");
+        assertThat(ids(EnumSet.of(KITCHEN), true, "Malmo")).containsExactly("b");
+        assertThat(ids(Set.of(), true, "Malmo")).containsExactly("b", "d");
+        assertThat(ids(Set.of(), true, "Gothenburg")).containsExactly("f");
+        assertThat(index.size()).isEqualTo(5);
+
+        //a removed listing keeps its ordinal, so it still works as a cursor
+        assertThat(index.findPage(Set.of(), true, null, "c", 0, 10).ids()).containsExactly("d", "e", "f");
+    }
+
+    @Test
+    void removingLastListingOfLocationRemovesLocation() {
+        index.remove("c");
+        index.remove("d");
+
+        assertThat(ids(Set.of(), true, "Malmo")).isEmpty();
+        assertThat(ids(EnumSet.of(WIFI), true, "Malmo")).isEmpty();
+    }
+
+    @Test
+    void changesMadeDuringRebuildAreReplayedOnNewIndex() {
+        //the changes are made while the listings are read from the database, they are not in the stream
+        Stream<Listing> listings = Stream.of(
+                        listing("a", "Stockholm", WIFI),
+                        listing("b", "Stockholm", WIFI),
+                        listing("c", "Malmo", POOL))
+                .peek(listing -> {
+                    if (listing.getId().equals("b")) {
+                        index.put(listing("g", "Malmo", WIFI));
+                        index.put(listing("a", "Malmo", KITCHEN));
+                        index.remove("c");
+                    }
+                });
+        when(listingRepository.streamSearchIndexFieldsBy()).thenReturn(listings);
+
+        index.rebuild();
+
+        assertThat(ids(Set.of(), true, null)).containsExactly("a", "b", "g");
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("b", "g");
+        assertThat(ids(EnumSet.of(KITCHEN), true, "Malmo")).containsExactly("a");
+        assertThat(ids(EnumSet.of(POOL), true, null)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void failedRebuildKeepsOldIndex() {
+        when(listingRepository.streamSearchIndexFieldsBy()).thenReturn(Stream.<Listing>of(listing("x", "Malmo"))
+                .peek(listing -> {
+                    throw new IllegalStateException("connection lost");
+                }));
+
+        assertThatThrownBy(index::rebuild).isInstanceOf(IllegalStateException.class);
+        index.put(listing("f", "Gothenburg", WIFI));
+
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("a", "b", "c", "f");
+        assertThat(index.size()).isEqualTo(6);
+    }
+
+    @Test
+    void indexIsNotReadyBeforeFirstBuild() {
+        ListingSearchIndex newIndex = new ListingSearchIndex(listingRepository, MAX_STALENESS, clock);
+
+        assertThat(newIndex.isReady()).isFalse();
+    }
+
+    @Test
+    void indexIsNotReadyWhenNotRebuiltWithinMaxStaleness() {
+        now = now.plus(MAX_STALENESS).minusSeconds(1);
+        assertThat(index.isReady()).isTrue();
+
+        now = now.plusSeconds(1);
+        assertThat(index.isReady()).isFalse();
+
+        when(listingRepository.streamSearchIndexFieldsBy()).thenReturn(Stream.of(listing("a", "Stockholm", WIFI)));
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    void failedRefreshKeepsOldIndexUntilItIsStale() {
+        when(listingRepository.streamSearchIndexFieldsBy()).thenThrow(new IllegalStateException("connection lost"));
+        now = now.plus(Duration.ofMinutes(1));
+
+        index.refresh();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(ids(EnumSet.of(WIFI), true, null)).containsExactly("a", "b", "c");
+
+        now = now.plus(MAX_STALENESS);
+        index.refresh();
+        assertThat(index.isReady()).isFalse();
+    }
+
+    private List<String> ids(Set<ListingUtilities> utilities, boolean matchAllUtilities, String location) {
+        return index.findPage(utilities, matchAllUtilities, location, null, 0, 100).ids();
+    }
+
+    private static Listing listing(String id, String location, ListingUtilities... utilities) {
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setLocation(location);
+        listing.setUtilities(utilities.length == 0 ? EnumSet.noneOf(ListingUtilities.class) : EnumSet.of(utilities[0], utilities));
+        return listing;
+    }
+}
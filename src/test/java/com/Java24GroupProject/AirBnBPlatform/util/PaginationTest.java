@@ -0,0 +1,94 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaginationTest {
+    private static final String ID = "67a1b2c3d4e5f60718293a4b";
+
+    @Test
+    void feedCursorRoundTrip() {
+        Pagination.FeedCursor cursor = new Pagination.FeedCursor(LocalDateTime.parse("2025-02-01T12:30:05.123"), ID);
+
+        assertThat(cursor.toCursor()).isEqualTo("2025-02-01T12:30:05.123_" + ID);
+        assertThat(Pagination.FeedCursor.parse(cursor.toCursor())).isEqualTo(cursor);
+    }
+
+    @Test
+    void feedCursorRoundTripWithoutSecondsOrMillis() {
+        //LocalDateTime.toString leaves out seconds and fractions that are zero
+        Pagination.FeedCursor cursor = new Pagination.FeedCursor(LocalDateTime.parse("2025-02-01T12:30:00"), ID);
+
+        assertThat(cursor.toCursor()).isEqualTo("2025-02-01T12:30_" + ID);
+        assertThat(Pagination.FeedCursor.parse(cursor.toCursor())).isEqualTo(cursor);
+    }
+
+    @Test
+    void feedCursorOfFirstPageIsNull() {
+        assertThat(Pagination.FeedCursor.parse(null)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "_", "2025-02-01T12:30:05.123", ID, "2025-02-01T12:30:05.123_", "2025-02-01T12:30:05.123_notAnId",
+            "2025-02-01_" + ID, "yesterday_" + ID, "2025-02-01T12:30:05.123-" + ID})
+    void invalidFeedCursorIsRejected(String cursor) {
+        assertThatThrownBy(() -> Pagination.FeedCursor.parse(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("cursor must be the nextCursor of a previous page");
+    }
+
+    @Test
+    void firstCursorIsSmallerThanAnyId() {
+        assertThat(ObjectId.isValid(Pagination.FIRST_CURSOR)).isTrue();
+        assertThat(new ObjectId(Pagination.FIRST_CURSOR)).isLessThan(new ObjectId(ID));
+        assertThat(new ObjectId(Pagination.FIRST_CURSOR)).isLessThan(new ObjectId());
+    }
+
+    @Test
+    void cursorOfFirstPageIsFirstCursor() {
+        assertThat(Pagination.cursor(null)).isEqualTo(Pagination.FIRST_CURSOR);
+        assertThat(Pagination.cursor(ID)).isEqualTo(ID);
+    }
+
+    @Test
+    void pageRequestIsSortedOnIdLastAndCapped() {
+        Pageable pageRequest = Pagination.toPageRequest(PageRequest.of(2, 1000, Sort.by(Sort.Direction.DESC, "createdAt")),
+                null, Set.of("createdAt"));
+
+        assertThat(pageRequest.getPageNumber()).isEqualTo(2);
+        assertThat(pageRequest.getPageSize()).isEqualTo(Pagination.MAX_PAGE_SIZE);
+        assertThat(pageRequest.getSort()).isEqualTo(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("id")));
+    }
+
+    @Test
+    void pageRequestWithAfterStartsAtCursor() {
+        Pageable pageRequest = Pagination.toPageRequest(PageRequest.of(5, 20), ID, Set.of("createdAt"));
+
+        assertThat(pageRequest.getPageNumber()).isZero();
+        assertThat(pageRequest.getSort()).isEqualTo(Sort.by("id"));
+    }
+
+    @Test
+    void invalidPageRequestIsRejected() {
+        assertThatThrownBy(() -> Pagination.toPageRequest(PageRequest.of(0, 20, Sort.by("password")), null, Set.of("createdAt")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Pagination.toPageRequest(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id")), null, Set.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Pagination.toPageRequest(PageRequest.of(0, 20, Sort.by("createdAt")), ID, Set.of("createdAt")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Pagination.toPageRequest(PageRequest.of(0, 20), "notAnId", Set.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,158 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.UserRequest;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.HostRatingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.services.CustomUserDetailsService;
+import com.Java24GroupProject.AirBnBPlatform.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//users for requests with a jwt token (CustomUserDetailsService.loadAuthenticatedUser) come from the cache until the user is
+//changed through UserService or gets a new password hash at login
+class UserPrincipalCacheTest {
+    private static final String USER_ID = "65b000000000000000000001";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final UserPrincipalCache userPrincipalCache = new UserPrincipalCache(100, Duration.ofMinutes(1));
+    private final CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, userPrincipalCache);
+    private final UserService userService = new UserService(userRepository, passwordEncoder, mock(ListingRepository.class),
+            mock(BookingRepository.class), mock(ReviewRepository.class), mock(HostRatingRepository.class), new ListingLockManager(),
+            mock(ListingSearchIndex.class), mock(ListingResponseCache.class), userPrincipalCache);
+    //the users in the database, the repository returns copies like a real one
+    private final Map<String, User> storedUsers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        ReflectionTestUtils.setField(user, "id", USER_ID);
+        user.setUsername("guest");
+        user.setPassword("encoded:Password1!");
+        user.setEmail("guest@example.com");
+        user.setPhoneNr("+46700000000");
+        user.setRoles(Set.of(Role.USER));
+        storedUsers.put(USER_ID, user);
+
+        when(userRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(storedUsers.get(invocation.<String>getArgument(0))).map(UserPrincipalCacheTest::copy));
+        when(userRepository.findByUsername(anyString())).thenAnswer(invocation -> storedUsers.values().stream()
+                .filter(storedUser -> storedUser.getUsername().equals(invocation.getArgument(0)))
+                .findFirst()
+                .map(UserPrincipalCacheTest::copy));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User savedUser = invocation.getArgument(0);
+            storedUsers.put(savedUser.getId(), copy(savedUser));
+            return savedUser;
+        });
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "encoded:" + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void userIsLoadedOnceAndServedFromCache() {
+        UserDetails first = userDetailsService.loadAuthenticatedUser("guest");
+        UserDetails second = userDetailsService.loadAuthenticatedUser("guest");
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findByUsername("guest");
+    }
+
+    @Test
+    void passwordChangeEvictsUser() {
+        login(userDetailsService.loadAuthenticatedUser("guest"));
+
+        userService.updateCurrentUser(userRequest("guest", "NewPassword1!", Set.of(Role.USER)));
+
+        assertThat(userDetailsService.loadAuthenticatedUser("guest").getPassword()).isEqualTo("encoded:NewPassword1!");
+    }
+
+    @Test
+    void roleChangeEvictsUser() {
+        UserDetails userDetails = userDetailsService.loadAuthenticatedUser("guest");
+        assertThat(authorities(userDetails)).containsExactly("ROLE_USER");
+        login(userDetails);
+
+        userService.updateCurrentUser(userRequest("guest", null, Set.of(Role.USER, Role.ADMIN)));
+
+        assertThat(authorities(userDetailsService.loadAuthenticatedUser("guest"))).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void usernameChangeEvictsOldUsername() {
+        login(userDetailsService.loadAuthenticatedUser("guest"));
+
+        userService.updateCurrentUser(userRequest("traveller", null, Set.of(Role.USER)));
+
+        //tokens issued for the old username no longer authenticate
+        assertThatThrownBy(() -> userDetailsService.loadAuthenticatedUser("guest")).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(userDetailsService.loadAuthenticatedUser("traveller").getPassword()).isEqualTo("encoded:Password1!");
+    }
+
+    @Test
+    void newPasswordHashAtLoginEvictsUser() {
+        UserDetails userDetails = userDetailsService.loadAuthenticatedUser("guest");
+
+        userDetailsService.updatePassword(userDetails, "encoded:rehashed");
+
+        assertThat(userDetailsService.loadAuthenticatedUser("guest").getPassword()).isEqualTo("encoded:rehashed");
+    }
+
+    private static UserRequest userRequest(String username, String password, Set<Role> roles) {
+        return new UserRequest(username, password, "guest@example.com", "+46700000000", null, null, null, null, null, null, roles);
+    }
+
+    private static Set<String> authorities(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+    //logged in as by JwtAuthenticationFilter, with the cached principal
+    private static void login(UserDetails userDetails) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        ReflectionTestUtils.setField(copy, "id", user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setPhoneNr(user.getPhoneNr());
+        copy.setRoles(user.getRoles());
+        return copy;
+    }
+}
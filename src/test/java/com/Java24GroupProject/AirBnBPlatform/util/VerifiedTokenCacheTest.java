@@ -0,0 +1,109 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+    private static final String SECRET = "verified-token-cache-test-secret-verified-token-cache-test-secret";
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(true, 100);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void tokenIsVerifiedOnce() {
+        Claims claims = claims("guest", new Date(System.currentTimeMillis() + 60_000));
+
+        assertThat(cache.get("token", verifier(claims))).isSameAs(claims);
+        assertThat(cache.get("token", verifier(claims))).isSameAs(claims);
+        assertThat(verifications).hasValue(1);
+        assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+        assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+        assertThat(cache.getStats().getEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void otherTokenIsVerified() {
+        Claims guestClaims = claims("guest", new Date(System.currentTimeMillis() + 60_000));
+        Claims hostClaims = claims("host", new Date(System.currentTimeMillis() + 60_000));
+
+        assertThat(cache.get("guest-token", verifier(guestClaims))).isSameAs(guestClaims);
+        assertThat(cache.get("host-token", verifier(hostClaims))).isSameAs(hostClaims);
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void invalidTokenIsNotCached() {
+        assertThatThrownBy(() -> cache.get("token", token -> {
+            verifications.incrementAndGet();
+            throw new JwtException("signature does not match");
+        })).isInstanceOf(JwtException.class);
+
+        Claims claims = claims("guest", new Date(System.currentTimeMillis() + 60_000));
+        assertThat(cache.get("token", verifier(claims))).isSameAs(claims);
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void expiredTokenIsNotKept() {
+        Claims expiredClaims = claims("guest", new Date(System.currentTimeMillis() - 1000));
+        Claims claimsWithoutExpiration = claims("guest", null);
+
+        cache.get("expired-token", verifier(expiredClaims));
+        cache.get("expired-token", verifier(expiredClaims));
+        cache.get("token-without-expiration", verifier(claimsWithoutExpiration));
+        cache.get("token-without-expiration", verifier(claimsWithoutExpiration));
+
+        assertThat(verifications).hasValue(4);
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryToken() {
+        VerifiedTokenCache disabledCache = new VerifiedTokenCache(false, 100);
+        Claims claims = claims("guest", new Date(System.currentTimeMillis() + 60_000));
+
+        disabledCache.get("token", verifier(claims));
+        disabledCache.get("token", verifier(claims));
+
+        assertThat(verifications).hasValue(2);
+        assertThat(disabledCache.getStats().isEnabled()).isFalse();
+    }
+
+    //through JwtUtil: a token with a wrong signature is rejected, also when the same claims have been cached for the real token
+    @Test
+    void tokenWithOtherSignatureIsRejected() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, cache);
+        JwtUtil otherJwtUtil = new JwtUtil(SECRET.replace('t', 'T'), 60_000, new VerifiedTokenCache(false, 0));
+        UserDetails userDetails = User.withUsername("guest").password("unused").roles("USER").build();
+        String token = jwtUtil.generateToken(userDetails);
+
+        Claims claims = jwtUtil.extractAllClaims(token);
+        assertThat(jwtUtil.extractAllClaims(token)).isSameAs(claims);
+        assertThat(jwtUtil.validateToken(claims, userDetails)).isTrue();
+
+        assertThatThrownBy(() -> jwtUtil.extractAllClaims(otherJwtUtil.generateToken(userDetails))).isInstanceOf(JwtException.class);
+        String tamperedToken = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThatThrownBy(() -> jwtUtil.extractAllClaims(tamperedToken)).isInstanceOf(JwtException.class);
+    }
+
+    private Function<String, Claims> verifier(Claims claims) {
+        return token -> {
+            verifications.incrementAndGet();
+            return claims;
+        };
+    }
+
+    private static Claims claims(String subject, Date expiration) {
+        return Jwts.claims().setSubject(subject).setExpiration(expiration);
+    }
+}